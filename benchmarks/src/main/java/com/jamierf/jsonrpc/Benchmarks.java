@@ -0,0 +1,40 @@
+package com.jamierf.jsonrpc;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the shaded benchmarks jar. Accepts the standard JMH command line, but always attaches
+ * the GC profiler so every run reports bytes allocated per operation alongside throughput and latency.
+ */
+public final class Benchmarks {
+
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        final CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp()) {
+            options.showHelp();
+            return;
+        }
+
+        final Runner runner = new Runner(new OptionsBuilder()
+                .parent(options)
+                .addProfiler(GCProfiler.class)
+                .build());
+
+        if (options.shouldList()) {
+            runner.list();
+            return;
+        }
+
+        runner.run();
+    }
+
+    private Benchmarks() {
+    }
+}
@@ -0,0 +1,103 @@
+package com.jamierf.jsonrpc;
+
+import static com.jamierf.jsonrpc.transport.NullTransport.nullSink;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.io.ByteSink;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.jamierf.jsonrpc.api.JsonRpcRequest;
+import com.jamierf.jsonrpc.api.JsonRpcResponse;
+import com.jamierf.jsonrpc.api.Parameters;
+import com.jamierf.jsonrpc.codec.TestEntity;
+import com.jamierf.jsonrpc.codec.jackson.JacksonCodecFactory;
+import com.jamierf.jsonrpc.transport.NullTransport;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class JsonRpcServerBenchmark {
+
+    public interface Service {
+        String ping();
+        TestEntity echo(String name, int age);
+    }
+
+    private JsonRpcServer server;
+    private ByteSink output;
+
+    private JsonRpcRequest pingRequest;
+    private JsonRpcRequest echoRequest;
+    private ByteSource batchedMessage;
+
+    @Setup
+    public void setUp() {
+        server = JsonRpc.server(new NullTransport(), new JacksonCodecFactory())
+                .executor(MoreExecutors.newDirectExecutorService())
+                .metrics(new MetricRegistry())
+                .build();
+
+        server.register(new Service() {
+            @Override
+            public String ping() {
+                return "pong";
+            }
+
+            @Override
+            public TestEntity echo(final String name, final int age) {
+                return new TestEntity(name, age);
+            }
+        }, Service.class);
+
+        output = nullSink();
+
+        pingRequest = new JsonRpcRequest("ping", Parameters.none(), "1", Collections.emptyMap());
+        echoRequest = new JsonRpcRequest("echo", Parameters.of(
+                "name", "timmy",
+                "age", 3
+        ), "1", Collections.emptyMap());
+        batchedMessage = Resources.asByteSource(JsonRpcServer.class.getResource("batched_request.json"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public ListenableFuture<Optional<JsonRpcResponse<?>>> handleRequestWithoutParams() {
+        return server.handleRequest(pingRequest, output);
+    }
+
+    @Benchmark
+    public ListenableFuture<Optional<JsonRpcResponse<?>>> handleRequestWithParams() {
+        return server.handleRequest(echoRequest, output);
+    }
+
+    @Benchmark
+    public void onBatchedMessage() throws IOException {
+        server.onMessage(batchedMessage, output);
+    }
+}
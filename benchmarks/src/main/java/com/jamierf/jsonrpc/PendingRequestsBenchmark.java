@@ -0,0 +1,94 @@
+package com.jamierf.jsonrpc;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jamierf.jsonrpc.api.JsonRpcResponse;
+import com.jamierf.jsonrpc.api.Result;
+
+/**
+ * Adding, looking up and completing requests in the pending request table, with a number of other requests already
+ * in flight. Run through {@link Benchmarks} the GC profiler reports the bytes allocated per call, and the bytes
+ * retained per in-flight call are measured and printed when set up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PendingRequestsBenchmark {
+
+    private static final int MEASURED_REQUESTS = 1000000;
+
+    @Param({"100", "10000"})
+    public int inFlight;
+
+    private PendingRequests requests;
+    private IdGenerator ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.out.printf("%nRequests in flight retain %d bytes per request%n", measureRetainedBytes());
+
+        requests = new PendingRequests();
+        ids = IdGenerator.sequential();
+
+        for (int i = 0; i < inFlight; i++) {
+            requests.add(new PendingResponse<>(ids.nextId(), String.class));
+        }
+    }
+
+    private static long measureRetainedBytes() {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        final PendingRequests table = new PendingRequests();
+        final IdGenerator ids = IdGenerator.sequential();
+
+        memory.gc();
+        final long before = memory.getHeapMemoryUsage().getUsed();
+
+        // Enough requests that the table itself and any noise in heap usage are negligible
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            table.add(new PendingResponse<>(ids.nextId(), String.class));
+        }
+
+        memory.gc();
+        final long after = memory.getHeapMemoryUsage().getUsed();
+
+        checkState(table.size() == MEASURED_REQUESTS, "Requests completed while being measured");
+        return (after - before) / MEASURED_REQUESTS;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object addAndComplete() {
+        final PendingResponse<String> pending = new PendingResponse<>(ids.nextId(), String.class);
+        requests.add(pending);
+
+        @SuppressWarnings("unchecked")
+        final PendingResponse<String> found = (PendingResponse<String>) requests.get(pending.getId());
+        found.complete(new JsonRpcResponse<>(Optional.of(new Result<>("pong")), Optional.empty(), pending.getId(),
+                Collections.emptyMap()));
+
+        return pending.getFuture();
+    }
+}
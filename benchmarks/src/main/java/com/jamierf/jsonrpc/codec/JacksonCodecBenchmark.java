@@ -0,0 +1,117 @@
+package com.jamierf.jsonrpc.codec;
+
+import static com.jamierf.jsonrpc.util.TypeReference.reference;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Resources;
+import com.jamierf.jsonrpc.api.JsonRpcMessage;
+import com.jamierf.jsonrpc.api.JsonRpcRequest;
+import com.jamierf.jsonrpc.api.JsonRpcResponse;
+import com.jamierf.jsonrpc.api.Parameters;
+import com.jamierf.jsonrpc.api.Result;
+import com.jamierf.jsonrpc.codec.jackson.JacksonCodecFactory;
+import com.jamierf.jsonrpc.util.TypeReference;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class JacksonCodecBenchmark {
+
+    private static final TypeReference<Collection<JsonRpcMessage>> MESSAGES_TYPE = new TypeReference<Collection<JsonRpcMessage>>() {};
+
+    private static byte[] resource(final String name) throws IOException {
+        return Resources.toByteArray(JsonRpcDeserializersTest.class.getResource(name));
+    }
+
+    private Codec codec;
+    private ByteArrayOutputStream out;
+
+    private byte[] namedParamsRequest;
+    private byte[] positionalParamsRequest;
+    private byte[] entityResponse;
+
+    private JsonRpcRequest request;
+    private JsonRpcResponse<TestEntity> response;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Parameters<String, TypeReference<?>> types = Parameters.of(
+                "name", reference(String.class),
+                "age", reference(int.class),
+                "dob", reference(Date.class),
+                "test", reference(TestEntity.class)
+        );
+
+        codec = new JacksonCodecFactory().create(true,
+                ImmutableMap.<String, TypeReference<?>>of("1", reference(TestEntity.class))::get,
+                ImmutableMap.of("ping", types)::get,
+                new MetricRegistry());
+        out = new ByteArrayOutputStream();
+
+        namedParamsRequest = resource("params_request.json");
+        positionalParamsRequest = resource("positional_params_request.json");
+        entityResponse = resource("test_response.json");
+
+        request = new JsonRpcRequest("ping", Parameters.of(
+                "name", "timmy",
+                "age", 3,
+                "dob", new Date(1427900421000L),
+                "test", new TestEntity("hello world", 7)
+        ), "1", Collections.emptyMap());
+        response = new JsonRpcResponse<>(Optional.of(new Result<>(new TestEntity("hello world", 7))),
+                Optional.empty(), "1", Collections.emptyMap());
+    }
+
+    @Benchmark
+    public Collection<JsonRpcMessage> readNamedParamsRequest() throws IOException {
+        return codec.readValue(new ByteArrayInputStream(namedParamsRequest), MESSAGES_TYPE);
+    }
+
+    @Benchmark
+    public Collection<JsonRpcMessage> readPositionalParamsRequest() throws IOException {
+        return codec.readValue(new ByteArrayInputStream(positionalParamsRequest), MESSAGES_TYPE);
+    }
+
+    @Benchmark
+    public Collection<JsonRpcMessage> readEntityResponse() throws IOException {
+        return codec.readValue(new ByteArrayInputStream(entityResponse), MESSAGES_TYPE);
+    }
+
+    @Benchmark
+    public int writeRequest() throws IOException {
+        out.reset();
+        codec.writeValue(out, request);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeResponse() throws IOException {
+        out.reset();
+        codec.writeValue(out, response);
+        return out.size();
+    }
+}
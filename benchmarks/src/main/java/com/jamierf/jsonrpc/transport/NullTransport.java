@@ -0,0 +1,31 @@
+package com.jamierf.jsonrpc.transport;
+
+import com.google.common.io.ByteSink;
+import com.google.common.io.ByteStreams;
+
+import java.io.OutputStream;
+
+/**
+ * A {@link Transport} which discards everything written to it, for benchmarking the layers above the wire.
+ */
+public class NullTransport extends AbstractTransport {
+
+    public static ByteSink nullSink() {
+        return new ByteSink() {
+            @Override
+            public OutputStream openStream() {
+                return ByteStreams.nullOutputStream();
+            }
+        };
+    }
+
+    @Override
+    public ByteSink getMessageOutput() {
+        return nullSink();
+    }
+
+    @Override
+    public void close() {
+        /* nothing to close */
+    }
+}
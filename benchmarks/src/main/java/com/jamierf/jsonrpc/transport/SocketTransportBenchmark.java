@@ -0,0 +1,131 @@
+package com.jamierf.jsonrpc.transport;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.jamierf.jsonrpc.JsonRpc;
+import com.jamierf.jsonrpc.JsonRpcClient;
+import com.jamierf.jsonrpc.JsonRpcServer;
+import com.jamierf.jsonrpc.codec.TestEntity;
+import com.jamierf.jsonrpc.codec.jackson.JacksonCodecFactory;
+import com.jamierf.jsonrpc.transport.socket.ClientSocketTransportBuilder;
+import com.jamierf.jsonrpc.transport.socket.ServerSocketTransportBuilder;
+import com.jamierf.jsonrpc.transport.socket.SocketTransport;
+
+/**
+ * Full client to server round trips over a loopback {@link SocketTransport}, including codec, dispatch and
+ * both directions of the socket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SocketTransportBenchmark {
+
+    public interface Service {
+        String ping();
+        TestEntity echo(String name, int age);
+    }
+
+    /**
+     * Number of threads decoding incoming messages, or 0 to decode on the event loop.
+     */
+    @Param({"0", "4"})
+    public int decoderThreads;
+
+    private ExecutorService serverExecutor;
+    private ExecutorService clientExecutor;
+    private JsonRpcServer server;
+    private JsonRpcClient client;
+    private Service service;
+
+    @Setup
+    public void setUp() {
+        serverExecutor = Executors.newFixedThreadPool(10);
+        clientExecutor = Executors.newFixedThreadPool(10);
+
+        final ServerSocketTransportBuilder serverTransportBuilder = SocketTransport.forServer(0)
+                .metrics(new MetricRegistry());
+        if (decoderThreads > 0) {
+            serverTransportBuilder.decoderThreads(decoderThreads);
+        }
+
+        final SocketTransport serverTransport = serverTransportBuilder.build();
+        server = JsonRpc.server(serverTransport, new JacksonCodecFactory())
+                .executor(serverExecutor)
+                .metrics(new MetricRegistry())
+                .build();
+
+        server.register(new Service() {
+            @Override
+            public String ping() {
+                return "pong";
+            }
+
+            @Override
+            public TestEntity echo(final String name, final int age) {
+                return new TestEntity(name, age);
+            }
+        }, Service.class);
+
+        final ClientSocketTransportBuilder clientTransportBuilder = SocketTransport.forClient("localhost", serverTransport.getLocalAddress().getPort())
+                .metrics(new MetricRegistry());
+
+        if (decoderThreads > 0) {
+            clientTransportBuilder.decoderThreads(decoderThreads);
+        }
+
+        final SocketTransport clientTransport = clientTransportBuilder.build();
+        client = JsonRpc.client(clientTransport, new JacksonCodecFactory())
+                .requestTimeout(Duration.ofSeconds(10))
+                .executor(clientExecutor)
+                .metrics(new MetricRegistry())
+                .build();
+
+        service = client.proxy(Service.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.close();
+
+        clientExecutor.shutdown();
+        serverExecutor.shutdown();
+    }
+
+    @Benchmark
+    public String roundTripWithoutParams() {
+        return service.ping();
+    }
+
+    @Benchmark
+    public TestEntity roundTripWithParams() {
+        return service.echo("timmy", 3);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TestEntity contendedRoundTripWithParams() {
+        return service.echo("timmy", 3);
+    }
+}
@@ -0,0 +1,87 @@
+package com.jamierf.jsonrpc.util;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.Resources;
+import com.jamierf.jsonrpc.codec.JsonRpcDeserializersTest;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class JsonObjectDecoderBenchmark {
+
+    private static final int FRAMES_PER_READ = 16;
+
+    private EmbeddedChannel channel;
+
+    private byte[] frame;
+    private byte[] frames;
+
+    @Setup
+    public void setUp() throws IOException {
+        channel = new EmbeddedChannel(new JsonObjectDecoder());
+
+        frame = Resources.toByteArray(JsonRpcDeserializersTest.class.getResource("params_request.json"));
+        frames = new byte[frame.length * FRAMES_PER_READ];
+        for (int i = 0; i < FRAMES_PER_READ; i++) {
+            System.arraycopy(frame, 0, frames, i * frame.length, frame.length);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finish();
+    }
+
+    @Benchmark
+    public int decodeSingleFrame() {
+        channel.writeInbound(Unpooled.wrappedBuffer(frame));
+        return drain();
+    }
+
+    @Benchmark
+    public int decodeFragmentedFrame() {
+        final int split = frame.length / 2;
+        channel.writeInbound(Unpooled.wrappedBuffer(frame, 0, split));
+        channel.writeInbound(Unpooled.wrappedBuffer(frame, split, frame.length - split));
+        return drain();
+    }
+
+    @Benchmark
+    public int decodeCoalescedFrames() {
+        channel.writeInbound(Unpooled.wrappedBuffer(frames));
+        return drain();
+    }
+
+    private int drain() {
+        int bytes = 0;
+
+        ByteBuf buffer;
+        while ((buffer = (ByteBuf) channel.readInbound()) != null) {
+            bytes += buffer.readableBytes();
+            buffer.release();
+        }
+
+        return bytes;
+    }
+}
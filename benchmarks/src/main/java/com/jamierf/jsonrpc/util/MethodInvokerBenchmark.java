@@ -0,0 +1,85 @@
+package com.jamierf.jsonrpc.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jamierf.jsonrpc.codec.TestEntity;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MethodInvokerBenchmark {
+
+    public interface Service {
+        String ping();
+        TestEntity echo(String name, int age);
+    }
+
+    private static final Object[] NO_PARAMS = new Object[0];
+
+    private MethodInvoker reflectivePing;
+    private MethodInvoker reflectiveEcho;
+    private MethodInvoker compiledPing;
+    private MethodInvoker compiledEcho;
+
+    private Object[] echoParams;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        final Service service = new Service() {
+            @Override
+            public String ping() {
+                return "pong";
+            }
+
+            @Override
+            public TestEntity echo(final String name, final int age) {
+                return new TestEntity(name, age);
+            }
+        };
+
+        final Method ping = Service.class.getMethod("ping");
+        final Method echo = Service.class.getMethod("echo", String.class, int.class);
+
+        reflectivePing = MethodInvoker.reflective(ping, service);
+        reflectiveEcho = MethodInvoker.reflective(echo, service);
+        compiledPing = MethodInvoker.compile(ping, service);
+        compiledEcho = MethodInvoker.compile(echo, service);
+
+        echoParams = new Object[] { "timmy", 3 };
+    }
+
+    @Benchmark
+    public Object reflectiveWithoutParams() throws Throwable {
+        return reflectivePing.invoke(NO_PARAMS);
+    }
+
+    @Benchmark
+    public Object reflectiveWithParams() throws Throwable {
+        return reflectiveEcho.invoke(echoParams);
+    }
+
+    @Benchmark
+    public Object compiledWithoutParams() throws Throwable {
+        return compiledPing.invoke(NO_PARAMS);
+    }
+
+    @Benchmark
+    public Object compiledWithParams() throws Throwable {
+        return compiledEcho.invoke(echoParams);
+    }
+}
@@ -27,6 +27,13 @@ public class JacksonCodec implements Codec {
                         final Function<String, TypeReference<?>> responseTypeMapper,
                         final Function<String, Parameters<String, TypeReference<?>>> requestParamTypeMapper,
                         final MetricRegistry metrics) {
+        this(useNamedParameters, responseTypeMapper, requestParamTypeMapper, new SerializationMetrics(metrics));
+    }
+
+    public JacksonCodec(final boolean useNamedParameters,
+                        final Function<String, TypeReference<?>> responseTypeMapper,
+                        final Function<String, Parameters<String, TypeReference<?>>> requestParamTypeMapper,
+                        final SerializationMetrics metrics) {
         codec = Jackson.newObjectMapper()
                 .setSerializationInclusion(JsonInclude.Include.NON_NULL)
                 .enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
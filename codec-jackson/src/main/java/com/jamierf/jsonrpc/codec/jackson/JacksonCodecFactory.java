@@ -9,11 +9,27 @@ import com.jamierf.jsonrpc.codec.CodecFactory;
 import com.jamierf.jsonrpc.util.TypeReference;
 
 public class JacksonCodecFactory implements CodecFactory {
+
+    private final boolean serializationMetrics;
+
+    public JacksonCodecFactory() {
+        this(true);
+    }
+
+    /**
+     * @param serializationMetrics whether to time reading and writing each message, which can be turned off for
+     *                             the hottest paths
+     */
+    public JacksonCodecFactory(final boolean serializationMetrics) {
+        this.serializationMetrics = serializationMetrics;
+    }
+
     @Override
     public Codec create(final boolean useNamedParameters,
                         final Function<String, TypeReference<?>> responseTypeMapper,
                         final Function<String, Parameters<String, TypeReference<?>>> requestParamTypeMapper,
                         final MetricRegistry metrics) {
-        return new JacksonCodec(useNamedParameters, responseTypeMapper, requestParamTypeMapper, metrics);
+        return new JacksonCodec(useNamedParameters, responseTypeMapper, requestParamTypeMapper,
+                serializationMetrics ? new SerializationMetrics(metrics) : SerializationMetrics.disabled());
     }
 }
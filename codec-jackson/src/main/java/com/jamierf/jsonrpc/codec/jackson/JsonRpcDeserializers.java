@@ -2,7 +2,6 @@ package com.jamierf.jsonrpc.codec.jackson;
 
 import java.util.function.Function;
 
-import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.BeanDescription;
 import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.JavaType;
@@ -24,11 +23,11 @@ public class JsonRpcDeserializers extends Deserializers.Base {
 
     private final Function<String, TypeReference<?>> responseTypeMapper;
     private final Function<String, Parameters<String, TypeReference<?>>> requestParamTypeMapper;
-    private final MetricRegistry metrics;
+    private final SerializationMetrics metrics;
 
     public JsonRpcDeserializers(final Function<String, TypeReference<?>> responseTypeMapper,
                                 final Function<String, Parameters<String, TypeReference<?>>> requestParamTypeMapper,
-                                final MetricRegistry metrics) {
+                                final SerializationMetrics metrics) {
         this.responseTypeMapper = responseTypeMapper;
         this.requestParamTypeMapper = requestParamTypeMapper;
         this.metrics = metrics;
@@ -44,15 +43,15 @@ public class JsonRpcDeserializers extends Deserializers.Base {
         }
 
         if (JsonRpcRequest.class.isAssignableFrom(rawType)) {
-            return new JsonRpcRequestDeserializer(requestParamTypeMapper, metrics);
+            return new JsonRpcRequestDeserializer(responseTypeMapper, requestParamTypeMapper, metrics);
         }
 
         if (JsonRpcResponse.class.isAssignableFrom(rawType)) {
-            return new JsonRpcResponseDeserializer(responseTypeMapper, metrics);
+            return new JsonRpcResponseDeserializer(responseTypeMapper, requestParamTypeMapper, metrics);
         }
 
         if (JsonRpcMessage.class.isAssignableFrom(rawType)) {
-            return new JsonRpcMessageDeserializer();
+            return new JsonRpcMessageDeserializer(responseTypeMapper, requestParamTypeMapper, metrics);
         }
 
         return super.findBeanDeserializer(type, config, beanDesc);
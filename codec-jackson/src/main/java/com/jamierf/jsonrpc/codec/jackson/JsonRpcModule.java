@@ -13,12 +13,19 @@ public class JsonRpcModule extends Module {
     private final boolean useNamedParameters;
     private final Function<String, TypeReference<?>> responseTypeMapper;
     private final Function<String, Parameters<String, TypeReference<?>>> requestParamTypeMapper;
-    private final MetricRegistry metrics;
+    private final SerializationMetrics metrics;
 
     public JsonRpcModule(final boolean useNamedParameters,
                          final Function<String, TypeReference<?>> responseTypeMapper,
                          final Function<String, Parameters<String, TypeReference<?>>> requestParamTypeMapper,
                          final MetricRegistry metrics) {
+        this(useNamedParameters, responseTypeMapper, requestParamTypeMapper, new SerializationMetrics(metrics));
+    }
+
+    public JsonRpcModule(final boolean useNamedParameters,
+                         final Function<String, TypeReference<?>> responseTypeMapper,
+                         final Function<String, Parameters<String, TypeReference<?>>> requestParamTypeMapper,
+                         final SerializationMetrics metrics) {
         this.useNamedParameters = useNamedParameters;
         this.responseTypeMapper = responseTypeMapper;
         this.requestParamTypeMapper = requestParamTypeMapper;
@@ -1,6 +1,5 @@
 package com.jamierf.jsonrpc.codec.jackson;
 
-import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.BeanDescription;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonSerializer;
@@ -16,9 +15,9 @@ import com.jamierf.jsonrpc.codec.jackson.serializers.JsonRpcResponseSerializer;
 public class JsonRpcSerializers extends Serializers.Base {
 
     private final boolean useNamedParameters;
-    private final MetricRegistry metrics;
+    private final SerializationMetrics metrics;
 
-    public JsonRpcSerializers(final boolean useNamedParameters, final MetricRegistry metrics) {
+    public JsonRpcSerializers(final boolean useNamedParameters, final SerializationMetrics metrics) {
         this.useNamedParameters = useNamedParameters;
         this.metrics = metrics;
     }
@@ -28,11 +27,11 @@ public class JsonRpcSerializers extends Serializers.Base {
         final Class<?> rawType = type.getRawClass();
 
         if (JsonRpcRequest.class.isAssignableFrom(rawType)) {
-            return new JsonRpcRequestSerializer(useNamedParameters, metrics);
+            return new JsonRpcRequestSerializer(useNamedParameters, metrics.getRequestSerialization());
         }
 
         if (JsonRpcResponse.class.isAssignableFrom(rawType)) {
-            return new JsonRpcResponseSerializer(metrics);
+            return new JsonRpcResponseSerializer(metrics.getResponseSerialization());
         }
 
         if (ErrorMessage.class.isAssignableFrom(rawType)) {
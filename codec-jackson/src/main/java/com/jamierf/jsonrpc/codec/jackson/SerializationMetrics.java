@@ -0,0 +1,55 @@
+package com.jamierf.jsonrpc.codec.jackson;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import java.util.Optional;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.jamierf.jsonrpc.codec.jackson.deserializers.JsonRpcRequestDeserializer;
+import com.jamierf.jsonrpc.codec.jackson.deserializers.JsonRpcResponseDeserializer;
+import com.jamierf.jsonrpc.codec.jackson.serializers.JsonRpcRequestSerializer;
+import com.jamierf.jsonrpc.codec.jackson.serializers.JsonRpcResponseSerializer;
+
+/**
+ * Timers for reading and writing each message, looked up once rather than per message. Timing can be turned off
+ * entirely, since for small messages it costs a noticeable fraction of the serialization itself.
+ */
+public class SerializationMetrics {
+
+    public static SerializationMetrics disabled() {
+        return new SerializationMetrics(Optional.empty());
+    }
+
+    private final Optional<Timer> requestSerialization;
+    private final Optional<Timer> responseSerialization;
+    private final Optional<Timer> requestDeserialization;
+    private final Optional<Timer> responseDeserialization;
+
+    public SerializationMetrics(final MetricRegistry metrics) {
+        this(Optional.of(metrics));
+    }
+
+    private SerializationMetrics(final Optional<MetricRegistry> metrics) {
+        requestSerialization = metrics.map(m -> m.timer(name(JsonRpcRequestSerializer.class, "serialize")));
+        responseSerialization = metrics.map(m -> m.timer(name(JsonRpcResponseSerializer.class, "serialize")));
+        requestDeserialization = metrics.map(m -> m.timer(name(JsonRpcRequestDeserializer.class, "deserialize")));
+        responseDeserialization = metrics.map(m -> m.timer(name(JsonRpcResponseDeserializer.class, "deserialize")));
+    }
+
+    public Optional<Timer> getRequestSerialization() {
+        return requestSerialization;
+    }
+
+    public Optional<Timer> getResponseSerialization() {
+        return responseSerialization;
+    }
+
+    public Optional<Timer> getRequestDeserialization() {
+        return requestDeserialization;
+    }
+
+    public Optional<Timer> getResponseDeserialization() {
+        return responseDeserialization;
+    }
+}
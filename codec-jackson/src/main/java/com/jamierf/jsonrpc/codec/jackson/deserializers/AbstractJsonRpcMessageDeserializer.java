@@ -0,0 +1,237 @@
+package com.jamierf.jsonrpc.codec.jackson.deserializers;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.jamierf.jsonrpc.util.Jackson.reference;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.jamierf.jsonrpc.api.ErrorMessage;
+import com.jamierf.jsonrpc.api.JsonRpcMessage;
+import com.jamierf.jsonrpc.api.JsonRpcRequest;
+import com.jamierf.jsonrpc.api.JsonRpcResponse;
+import com.jamierf.jsonrpc.api.Parameters;
+import com.jamierf.jsonrpc.api.Result;
+import com.jamierf.jsonrpc.codec.jackson.SerializationMetrics;
+import com.jamierf.jsonrpc.util.TypeReference;
+
+/**
+ * Reads a JSON-RPC message in a single pass over the token stream. Typed members (request parameters and
+ * response results) are bound straight from the parser once the member that determines their type has been seen,
+ * and are only buffered when they arrive first.
+ */
+public abstract class AbstractJsonRpcMessageDeserializer<T extends JsonRpcMessage> extends JsonDeserializer<T> {
+
+    private static final com.fasterxml.jackson.core.type.TypeReference<Map<String, ?>> METADATA_TYPE =
+            new com.fasterxml.jackson.core.type.TypeReference<Map<String, ?>>() {};
+
+    private final Function<String, TypeReference<?>> responseTypeMapper;
+    private final Function<String, Parameters<String, TypeReference<?>>> requestParamTypeMapper;
+    private final SerializationMetrics metrics;
+
+    protected AbstractJsonRpcMessageDeserializer(final Function<String, TypeReference<?>> responseTypeMapper,
+                                                 final Function<String, Parameters<String, TypeReference<?>>> requestParamTypeMapper,
+                                                 final SerializationMetrics metrics) {
+        this.responseTypeMapper = responseTypeMapper;
+        this.requestParamTypeMapper = requestParamTypeMapper;
+        this.metrics = metrics;
+    }
+
+    protected JsonRpcMessage readMessage(final JsonParser jp) throws IOException {
+        final long start = metrics.getRequestDeserialization().isPresent() ? System.nanoTime() : 0;
+        final ObjectCodec codec = checkNotNull(jp.getCodec());
+
+        String protocol = null;
+        String id = null;
+        String method = null;
+        Parameters<String, TypeReference<?>> types = null;
+        Parameters<String, ?> params = Parameters.none();
+        TokenBuffer bufferedParams = null;
+        Optional<Result<Object>> result = Optional.empty();
+        TokenBuffer bufferedResult = null;
+        ErrorMessage error = null;
+        Map<String, ?> metadata = Collections.emptyMap();
+
+        JsonToken token = jp.getCurrentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = jp.nextToken();
+        }
+
+        for (; token == JsonToken.FIELD_NAME; token = jp.nextToken()) {
+            final String field = jp.getCurrentName();
+            final boolean isNull = jp.nextToken() == JsonToken.VALUE_NULL;
+
+            switch (field) {
+                case "jsonrpc":
+                    protocol = jp.getValueAsString();
+                    break;
+                case "id":
+                    id = jp.getValueAsString();
+                    break;
+                case "method":
+                    method = jp.getValueAsString();
+                    checkArgument(method != null, "Invalid request without method");
+                    types = requestParamTypeMapper.apply(method);
+                    checkArgument(types != null, "Unrecognised requests, unknown method");
+                    break;
+                case "params":
+                    // We can only decode the parameters once we know which method they are for
+                    if (isNull) {
+                        break;
+                    }
+                    if (types != null) {
+                        params = readParams(jp, codec, types);
+                    } else {
+                        bufferedParams = buffer(jp);
+                    }
+                    break;
+                case "result":
+                    // We can only decode the result once we know which request it is for
+                    if (isNull) {
+                        break;
+                    }
+                    if (id != null) {
+                        result = Optional.of(new Result<>(codec.readValue(jp, reference(responseType(id)))));
+                    } else {
+                        bufferedResult = buffer(jp);
+                    }
+                    break;
+                case "error":
+                    if (!isNull) {
+                        error = codec.readValue(jp, ErrorMessage.class);
+                    }
+                    break;
+                case "meta":
+                    if (!isNull) {
+                        metadata = codec.readValue(jp, METADATA_TYPE);
+                    }
+                    break;
+                default:
+                    jp.skipChildren();
+            }
+        }
+
+        checkArgument(JsonRpcMessage.PROTOCOL_VERSION.equals(protocol), "Unsupported protocol: " + protocol);
+
+        // This must be a request
+        if (method != null) {
+            if (bufferedParams != null) {
+                params = readParams(bufferedParams, codec, types);
+            }
+
+            final JsonRpcRequest request = new JsonRpcRequest(method, params, id, metadata);
+            if (metrics.getRequestDeserialization().isPresent()) {
+                metrics.getRequestDeserialization().get().update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            return request;
+        }
+
+        // This must be a response
+        final boolean hasResult = result.isPresent() || bufferedResult != null;
+        if (hasResult || error != null) {
+            checkArgument(hasResult ^ error != null, "Only one of result and error may be present");
+            checkArgument(id != null || !hasResult, "Invalid result response without id");
+
+            // Figure out the type based on the expected return type of the request
+            final TypeReference<?> type = id != null ? responseType(id) : TypeReference.untyped();
+
+            if (bufferedResult != null) {
+                result = Optional.of(new Result<>(readValue(bufferedResult, codec, type)));
+            }
+
+            final JsonRpcResponse<?> response = new JsonRpcResponse<>(result, Optional.ofNullable(error), id, metadata);
+            if (metrics.getResponseDeserialization().isPresent()) {
+                metrics.getResponseDeserialization().get().update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            return response;
+        }
+
+        // This is an invalid message
+        throw new JsonParseException("Invalid JSON-RPC message.", jp.getCurrentLocation());
+    }
+
+    private TypeReference<?> responseType(final String id) {
+        final TypeReference<?> type = responseTypeMapper.apply(id);
+        checkArgument(type != null, "Unrecognised request, unknown response type");
+        return type;
+    }
+
+    private static TokenBuffer buffer(final JsonParser jp) throws IOException {
+        final TokenBuffer buffer = new TokenBuffer(jp);
+        buffer.copyCurrentStructure(jp);
+        return buffer;
+    }
+
+    private static <R> R readValue(final TokenBuffer buffer, final ObjectCodec codec, final TypeReference<R> type) throws IOException {
+        try (final JsonParser jp = buffer.asParser(codec)) {
+            jp.nextToken();
+            return codec.readValue(jp, reference(type));
+        }
+    }
+
+    private static Parameters<String, ?> readParams(final TokenBuffer buffer, final ObjectCodec codec,
+                                                    final Parameters<String, TypeReference<?>> types) throws IOException {
+        try (final JsonParser jp = buffer.asParser(codec)) {
+            jp.nextToken();
+            return readParams(jp, codec, types);
+        }
+    }
+
+    private static Parameters<String, ?> readParams(final JsonParser jp, final ObjectCodec codec,
+                                                    final Parameters<String, TypeReference<?>> types) throws IOException {
+        switch (jp.getCurrentToken()) {
+            case START_ARRAY:
+                return readPositionalParameters(jp, codec, types);
+            case START_OBJECT:
+                return readNamedParameters(jp, codec, types);
+            default:
+                throw new JsonParseException("Invalid JSON-RPC parameters.", jp.getCurrentLocation());
+        }
+    }
+
+    private static Parameters<String, ?> readNamedParameters(final JsonParser jp, final ObjectCodec codec,
+                                                             final Parameters<String, TypeReference<?>> types) throws IOException {
+        // Decode straight in to the position the target method expects, in whatever order we received them
+        final Parameters.Schema<String> schema = types.getSchema();
+        final Object[] values = new Object[schema.size()];
+
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = jp.getCurrentName();
+
+            final int index = schema.indexOf(name);
+            checkArgument(index >= 0, "Unknown parameter: " + name);
+
+            jp.nextToken();
+            values[index] = codec.readValue(jp, reference(types.get(index)));
+        }
+
+        return new Parameters<>(schema, values);
+    }
+
+    private static Parameters<String, ?> readPositionalParameters(final JsonParser jp, final ObjectCodec codec,
+                                                                  final Parameters<String, TypeReference<?>> types) throws IOException {
+        final Object[] values = new Object[types.size()];
+
+        int index = 0;
+        JsonToken token = jp.nextToken();
+        while (token != JsonToken.END_ARRAY && index < values.length) {
+            values[index] = codec.readValue(jp, reference(types.get(index)));
+            index++;
+            token = jp.nextToken();
+        }
+
+        checkArgument(!(token != JsonToken.END_ARRAY || index < values.length), "Mismatched number of parameters");
+        return new Parameters<>(types.getSchema(), values);
+    }
+}
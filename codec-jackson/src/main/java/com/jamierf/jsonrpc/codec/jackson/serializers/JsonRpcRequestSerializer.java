@@ -1,31 +1,31 @@
 package com.jamierf.jsonrpc.codec.jackson.serializers;
 
-import static com.codahale.metrics.MetricRegistry.name;
-
 import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
-import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.jamierf.jsonrpc.api.JsonRpcMessage;
 import com.jamierf.jsonrpc.api.JsonRpcRequest;
+import com.jamierf.jsonrpc.api.Parameters;
 
 public class JsonRpcRequestSerializer extends JsonSerializer<JsonRpcRequest> {
 
     private final boolean useNamedParameters;
-    private final MetricRegistry metrics;
+    private final Optional<Timer> timer;
 
-    public JsonRpcRequestSerializer(final boolean useNamedParameters, final MetricRegistry metrics) {
+    public JsonRpcRequestSerializer(final boolean useNamedParameters, final Optional<Timer> timer) {
         this.useNamedParameters = useNamedParameters;
-        this.metrics = metrics;
+        this.timer = timer;
     }
 
     @Override
     public void serialize(final JsonRpcRequest value, final JsonGenerator gen, final SerializerProvider serializers)
             throws IOException {
-        final Timer.Context timer = metrics.timer(name(JsonRpcRequestSerializer.class, "serialize")).time();
+        final long start = timer.isPresent() ? System.nanoTime() : 0;
         try {
             gen.writeStartObject();
             gen.writeStringField("jsonrpc", JsonRpcMessage.PROTOCOL_VERSION);
@@ -35,8 +35,17 @@ public class JsonRpcRequestSerializer extends JsonSerializer<JsonRpcRequest> {
             }
             gen.writeStringField("method", value.getMethod());
 
-            if (!value.getParams().isEmpty()) {
-                gen.writeObjectField("params", useNamedParameters ? value.getParams().named() : value.getParams().positional());
+            final Parameters<String, ?> params = value.getParams();
+            if (!params.isEmpty()) {
+                if (useNamedParameters) {
+                    gen.writeObjectFieldStart("params");
+                    for (int index = 0; index < params.size(); index++) {
+                        gen.writeObjectField(params.getSchema().getKey(index), params.get(index));
+                    }
+                    gen.writeEndObject();
+                } else {
+                    gen.writeObjectField("params", params.positional());
+                }
             }
 
             if (!value.getMetadata().isEmpty()) {
@@ -45,7 +54,9 @@ public class JsonRpcRequestSerializer extends JsonSerializer<JsonRpcRequest> {
 
             gen.writeEndObject();
         } finally {
-            timer.stop();
+            if (timer.isPresent()) {
+                timer.get().update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
         }
     }
 }
@@ -1,12 +1,11 @@
 package com.jamierf.jsonrpc.codec.jackson.serializers;
 
-import static com.codahale.metrics.MetricRegistry.name;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
-import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
@@ -18,15 +17,15 @@ import com.jamierf.jsonrpc.api.Result;
 
 public class JsonRpcResponseSerializer extends JsonSerializer<JsonRpcResponse<?>> {
 
-    private final MetricRegistry metrics;
+    private final Optional<Timer> timer;
 
-    public JsonRpcResponseSerializer(final MetricRegistry metrics) {
-        this.metrics = metrics;
+    public JsonRpcResponseSerializer(final Optional<Timer> timer) {
+        this.timer = timer;
     }
 
     @Override
     public void serialize(final JsonRpcResponse<?> value, final JsonGenerator gen, final SerializerProvider serializers) throws IOException {
-        final Timer.Context timer = metrics.timer(name(JsonRpcResponseSerializer.class, "serialize")).time();
+        final long start = timer.isPresent() ? System.nanoTime() : 0;
         try {
             gen.writeStartObject();
             gen.writeStringField("jsonrpc", JsonRpcMessage.PROTOCOL_VERSION);
@@ -53,7 +52,9 @@ public class JsonRpcResponseSerializer extends JsonSerializer<JsonRpcResponse<?>
 
             gen.writeEndObject();
         } finally {
-            timer.stop();
+            if (timer.isPresent()) {
+                timer.get().update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
         }
     }
 }
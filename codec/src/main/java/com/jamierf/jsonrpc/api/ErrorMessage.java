@@ -11,6 +11,7 @@ public class ErrorMessage<T> {
     public static final int CODE_METHOD_NOT_FOUND = -32601;
     public static final int CODE_INVALID_PARAMS = -32602;
     public static final int CODE_INTERNAL_ERROR = -32603;
+    public static final int CODE_SERVER_OVERLOADED = -32000;
 
     private final int code;
     private final String message;
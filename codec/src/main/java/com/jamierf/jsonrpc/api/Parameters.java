@@ -4,21 +4,111 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import java.lang.reflect.Parameter;
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.jamierf.jsonrpc.util.TypeReference;
 
+/**
+ * An ordered set of named values, held as an array alongside a {@link Schema} of their names. Parameters decoded
+ * for a method share the schema built once for its {@link #typeReference(Parameter[]) parameter types}, so decoding
+ * only allocates the array of values, which is handed to the method as is.
+ */
 public class Parameters<K, V> {
 
+    private static final Interner<Schema<?>> SCHEMAS = Interners.newWeakInterner();
+    private static final Parameters<?, ?> NONE = new Parameters<>(Schema.of(Collections.emptyList()), new Object[0]);
+
+    /**
+     * The names of a set of parameters and their positions. Schemas are interned, so sets of parameters with the same
+     * names in the same order share a single schema.
+     */
+    public static final class Schema<K> {
+
+        @SuppressWarnings("unchecked")
+        public static <K> Schema<K> of(final List<K> keys) {
+            return (Schema<K>) SCHEMAS.intern(new Schema<>(keys));
+        }
+
+        /**
+         * The names of the given method parameters. Interning has to build the names first, so callers should hold on
+         * to the schema for a method rather than ask for it on every call.
+         */
+        public static Schema<String> of(final Parameter[] keys) {
+            final List<String> names = Lists.newArrayListWithCapacity(keys.length);
+            for (final Parameter key : keys) {
+                names.add(key.getName());
+            }
+
+            return of(names);
+        }
+
+        private final Object[] keys;
+        private final ImmutableMap<K, Integer> indices;
+
+        private Schema(final List<K> keys) {
+            this.keys = keys.toArray();
+
+            final ImmutableMap.Builder<K, Integer> builder = ImmutableMap.builder();
+            for (int index = 0; index < this.keys.length; index++) {
+                builder.put(keys.get(index), index);
+            }
+
+            indices = builder.build();
+        }
+
+        public int size() {
+            return keys.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        public K getKey(final int index) {
+            return (K) keys[index];
+        }
+
+        /**
+         * The position of the given key, or -1 if there is no such key.
+         */
+        public int indexOf(final K key) {
+            final Integer index = indices.get(key);
+            return index == null ? -1 : index;
+        }
+
+        public Set<K> keys() {
+            return indices.keySet();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Schema<?> that = (Schema<?>) o;
+            return Arrays.equals(keys, that.keys);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(keys);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(keys);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public static <K, V> Parameters<K, V> of(final Object... entries) {
         checkArgument(entries.length % 2 == 0, "Unmatched number of entries");
@@ -51,22 +141,23 @@ public class Parameters<K, V> {
     }
 
     public static <V> Parameters<String, V> zip(final Parameter[] keys, final V[] values) {
+        return zip(Schema.of(keys), values);
+    }
+
+    /**
+     * Names the given values, which are held directly rather than copied.
+     */
+    public static <K, V> Parameters<K, V> zip(final Schema<K> schema, final V[] values) {
         if (values == null) {
             return Parameters.none();
         }
 
-        checkArgument(values.length == keys.length, "Invalid number of parameters");
-        final Builder<String, V> parameters = Parameters.builder();
-
-        for (int index = 0; index < keys.length; index++) {
-            parameters.add(keys[index].getName(), values[index]);
-        }
-
-        return parameters.build();
+        return new Parameters<>(schema, values);
     }
 
+    @SuppressWarnings("unchecked")
     public static <K, V> Parameters<K, V> none() {
-        return Parameters.<K, V>builder().build();
+        return (Parameters<K, V>) NONE;
     }
 
     public static <K, V> Builder<K, V> builder() {
@@ -75,35 +166,58 @@ public class Parameters<K, V> {
 
     public static class Builder<K, V> {
 
-        private final LinkedHashMap<K, Optional<V>> params;
+        private final Map<K, V> values;
 
         private Builder() {
-            params = Maps.newLinkedHashMap();
+            values = Maps.newLinkedHashMap();
         }
 
+        /**
+         * Adds a value, replacing the value of an existing key in its original position.
+         */
         public Builder<K, V> add(final K name, final V value) {
-            params.put(name, Optional.ofNullable(value));
+            values.put(name, value);
             return this;
         }
 
         public Parameters<K, V> build() {
-            return new Parameters<>(params);
+            return new Parameters<>(Schema.of(Lists.newArrayList(values.keySet())), values.values().toArray());
         }
     }
 
-    private final LinkedHashMap<K, Optional<V>> params;
+    private final Schema<K> schema;
+    private final Object[] values;
 
-    public Parameters(final LinkedHashMap<K, Optional<V>> params) {
-        this.params = params;
+    /**
+     * Holds the given values, in the order of the schema, without copying them.
+     */
+    public Parameters(final Schema<K> schema, final Object[] values) {
+        checkArgument(values.length == schema.size(), "Invalid number of parameters");
+
+        this.schema = schema;
+        this.values = values;
+    }
+
+    public Schema<K> getSchema() {
+        return schema;
     }
 
     public boolean isEmpty() {
-        return params.isEmpty();
+        return values.length == 0;
+    }
+
+    public int size() {
+        return values.length;
     }
 
     public Optional<V> get(final K key) {
-        return Optional.ofNullable(params.get(key))
-                .map(p -> p.orElse(null));
+        final int index = schema.indexOf(key);
+        return index < 0 ? Optional.empty() : Optional.ofNullable(get(index));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(final int index) {
+        return (V) values[index];
     }
 
     public Iterator<Map.Entry<K, V>> iterator() {
@@ -111,16 +225,24 @@ public class Parameters<K, V> {
     }
 
     public Map<K, V> named() {
-        return Maps.transformValues(params, p -> p.orElse(null));
+        final Map<K, V> named = Maps.newLinkedHashMap();
+        for (int index = 0; index < values.length; index++) {
+            named.put(schema.getKey(index), get(index));
+        }
+
+        return Collections.unmodifiableMap(named);
     }
 
     public Set<K> keys() {
-        return Collections.unmodifiableSet(params.keySet());
+        return schema.keys();
     }
 
+    /**
+     * The values in order, which is the array backing these parameters rather than a copy.
+     */
     @SuppressWarnings("unchecked")
     public V[] positional() {
-        return (V[]) named().values().toArray();
+        return (V[]) values;
     }
 
     @Override
@@ -128,12 +250,12 @@ public class Parameters<K, V> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Parameters<?, ?> that = (Parameters<?, ?>) o;
-        return Objects.equal(params, that.params);
+        return named().equals(that.named());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(params);
+        return named().hashCode();
     }
 
     @Override
@@ -0,0 +1,114 @@
+package com.jamierf.jsonrpc;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Maps;
+import com.jamierf.jsonrpc.limit.ConcurrencyLimit;
+
+/**
+ * Keeps a separate adaptive limit on the number of requests handled at once for each namespace, so a namespace
+ * whose dependencies slow down sheds its own load without starving the others.
+ */
+class ConcurrencyLimiters {
+
+    private final String serverName;
+    private final Supplier<? extends ConcurrencyLimit> limitFactory;
+    private final MetricRegistry metrics;
+    private final ConcurrentMap<String, Limiter> limiters;
+    private final Limiter defaultLimiter;
+
+    ConcurrencyLimiters(final String serverName, final Supplier<? extends ConcurrencyLimit> limitFactory,
+                        final MetricRegistry metrics) {
+        this.serverName = serverName;
+        this.limitFactory = limitFactory;
+        this.metrics = metrics;
+
+        limiters = Maps.newConcurrentMap();
+        // Methods outside any namespace are reported without a namespace in their metric names, which no namespaced
+        // limiter can produce
+        defaultLimiter = new Limiter(null);
+    }
+
+    /**
+     * Creates the limiter for a namespace as its methods are registered, so its metrics are registered up front.
+     *
+     * @throws IllegalStateException if another server sharing the metric registry has the same name
+     */
+    void register(final String namespace) {
+        if (namespace != null) {
+            limiters.computeIfAbsent(namespace, Limiter::new);
+        }
+    }
+
+    /**
+     * Admits a request to a method in the given namespace, returning a callback to be run once it completes, or
+     * nothing if the request should be dropped.
+     */
+    Optional<Runnable> tryAcquire(final String namespace) {
+        final Limiter limiter = namespace == null ? defaultLimiter : limiters.get(namespace);
+        return limiter.tryAcquire();
+    }
+
+    /**
+     * Removes the metrics of every limiter, so another server may later register under the same name.
+     */
+    void close() {
+        defaultLimiter.close();
+        limiters.values().forEach(Limiter::close);
+    }
+
+    private final class Limiter {
+        private final ConcurrencyLimit limit;
+        private final AtomicInteger inFlight;
+        private final String limitName;
+        private final String droppedName;
+        private final Meter dropped;
+
+        private Limiter(final String namespace) {
+            final String prefix = name(serverName, "concurrency-limit", namespace);
+            limitName = name(prefix, "limit");
+            droppedName = name(prefix, "dropped");
+
+            checkState(!metrics.getMetrics().containsKey(limitName) && !metrics.getMetrics().containsKey(droppedName),
+                    "Concurrency limit metrics for %s are already registered, servers sharing a metric registry " +
+                            "need distinct names", prefix);
+
+            limit = limitFactory.get();
+            inFlight = new AtomicInteger();
+            metrics.register(limitName, (Gauge<Integer>) limit::getLimit);
+            dropped = metrics.meter(droppedName);
+        }
+
+        private Optional<Runnable> tryAcquire() {
+            int current;
+            do {
+                current = inFlight.get();
+                if (current >= limit.getLimit()) {
+                    dropped.mark();
+                    return Optional.empty();
+                }
+            } while (!inFlight.compareAndSet(current, current + 1));
+
+            final int admittedInFlight = current + 1;
+            final long startTime = System.nanoTime();
+            return Optional.of(() -> {
+                inFlight.decrementAndGet();
+                limit.onSample(System.nanoTime() - startTime, admittedInFlight);
+            });
+        }
+
+        private void close() {
+            metrics.remove(limitName);
+            metrics.remove(droppedName);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.jamierf.jsonrpc;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the ids of outgoing requests, which only need to be unique among the requests awaiting a response from
+ * the same peer.
+ */
+public interface IdGenerator {
+
+    /**
+     * Numbers counting up from 1, which are short and cheap to generate and look up.
+     */
+    static IdGenerator sequential() {
+        final AtomicLong next = new AtomicLong();
+        return () -> Long.toString(next.incrementAndGet());
+    }
+
+    /**
+     * Random UUIDs, for when ids must be unique across clients. They're drawn from a thread local rather than a
+     * secure random, so generating them doesn't contend.
+     */
+    static IdGenerator random() {
+        return () -> {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            // Set the version 4 and IETF variant bits, as UUID.randomUUID does
+            final long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+            final long lsb = (random.nextLong() & ~(0xC000000000000000L)) | 0x8000000000000000L;
+            return new UUID(msb, lsb).toString();
+        };
+    }
+
+    String nextId();
+}
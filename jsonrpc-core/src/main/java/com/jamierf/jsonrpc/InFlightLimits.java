@@ -0,0 +1,114 @@
+package com.jamierf.jsonrpc;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteSink;
+import com.jamierf.jsonrpc.transport.Transport;
+
+/**
+ * Bounds the number of requests being handled at once, both in total and from any single connection. A connection
+ * whose output supports {@link Transport.FlowControl} is paused once it reaches its limit, so the transport stops
+ * reading from it until requests complete, while requests over any other limit are rejected.
+ */
+class InFlightLimits {
+
+    static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final int maxInFlight;
+    private final int maxPerConnection;
+    private final AtomicInteger inFlight;
+    private final Counter inFlightCounter;
+    private final Meter rejected;
+    private final Meter paused;
+
+    // Only connections with requests in flight are held, and counts are only changed atomically with the map
+    private final ConcurrentMap<ByteSink, Integer> connections;
+
+    InFlightLimits(final int maxInFlight, final int maxPerConnection, final MetricRegistry metrics) {
+        checkArgument(maxInFlight > 0, "Max in flight requests must be positive");
+        checkArgument(maxPerConnection > 0, "Max in flight requests per connection must be positive");
+
+        this.maxInFlight = maxInFlight;
+        this.maxPerConnection = maxPerConnection;
+
+        inFlight = new AtomicInteger();
+        inFlightCounter = metrics.counter(name(JsonRpcServer.class, "in-flight"));
+        rejected = metrics.meter(name(JsonRpcServer.class, "in-flight", "rejected"));
+        paused = metrics.meter(name(JsonRpcServer.class, "in-flight", "paused"));
+        connections = Maps.newConcurrentMap();
+    }
+
+    /**
+     * Admits a request received from the given connection, returning false if it should be rejected. Every admitted
+     * request must later be released.
+     */
+    boolean tryAcquire(final ByteSink connection) {
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            rejected.mark();
+            return false;
+        }
+
+        if (maxPerConnection != UNLIMITED && !tryAcquireConnection(connection)) {
+            inFlight.decrementAndGet();
+            rejected.mark();
+            return false;
+        }
+
+        inFlightCounter.inc();
+        return true;
+    }
+
+    private boolean tryAcquireConnection(final ByteSink connection) {
+        final boolean flowControlled = connection instanceof Transport.FlowControl;
+        final boolean[] admitted = new boolean[1];
+
+        connections.compute(connection, (k, count) -> {
+            final int current = count == null ? 0 : count;
+
+            // Messages already read from a paused connection are still accepted
+            if (current >= maxPerConnection && !flowControlled) {
+                return count;
+            }
+
+            if (flowControlled && current + 1 == maxPerConnection) {
+                paused.mark();
+                ((Transport.FlowControl) connection).pauseReading();
+            }
+
+            admitted[0] = true;
+            return current + 1;
+        });
+
+        return admitted[0];
+    }
+
+    void release(final ByteSink connection) {
+        inFlight.decrementAndGet();
+        inFlightCounter.dec();
+
+        if (maxPerConnection == UNLIMITED) {
+            return;
+        }
+
+        connections.compute(connection, (k, count) -> {
+            if (count == null) {
+                return null;
+            }
+
+            if (count == maxPerConnection && connection instanceof Transport.FlowControl) {
+                ((Transport.FlowControl) connection).resumeReading();
+            }
+
+            return count > 1 ? count - 1 : null;
+        });
+    }
+}
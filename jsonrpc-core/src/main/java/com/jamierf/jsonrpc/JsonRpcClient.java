@@ -1,23 +1,57 @@
 package com.jamierf.jsonrpc;
 
+import static com.codahale.metrics.MetricRegistry.name;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Supplier;
 
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterables;
+import com.google.common.io.ByteSink;
 import com.google.common.reflect.Reflection;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import com.jamierf.jsonrpc.api.Idempotent;
+import com.jamierf.jsonrpc.api.JsonRpcRequest;
+import com.jamierf.jsonrpc.api.Parameters;
 import com.jamierf.jsonrpc.codec.CodecFactory;
 import com.jamierf.jsonrpc.filter.RequestHandler;
 import com.jamierf.jsonrpc.transport.Transport;
+import com.jamierf.jsonrpc.transport.TransportException;
+import com.jamierf.jsonrpc.util.Backoff;
+import com.jamierf.jsonrpc.util.TypeReference;
 
 public class JsonRpcClient extends JsonRpcServer {
 
+    private final int maxRetries;
+    private final Backoff retryBackoff;
+    private final Optional<RequestBatcher> batcher;
+    private final Meter retries;
+
     protected JsonRpcClient(final Transport transport, final boolean useNamedParameters, final Duration requestTimeout,
                             final ListeningExecutorService executor, final MetricRegistry metrics, final CodecFactory codecFactory,
-                            final Supplier<Map<String, ?>> metadata, final List<RequestHandler> requestHandlerChain) {
-        super (transport, useNamedParameters, requestTimeout, executor, metrics, codecFactory, metadata, requestHandlerChain);
+                            final Supplier<Map<String, ?>> metadata, final List<RequestHandler> requestHandlerChain,
+                            final int maxRetries, final Backoff retryBackoff, final Optional<Duration> batchWindow,
+                            final int maxBatchSize, final IdGenerator idGenerator) {
+        super (transport, useNamedParameters, requestTimeout, executor, metrics, codecFactory, metadata, requestHandlerChain,
+                InFlightLimits.UNLIMITED, InFlightLimits.UNLIMITED, Optional.empty(), JsonRpcClient.class.getName(),
+                idGenerator);
+
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.batcher = batchWindow.map(window -> new RequestBatcher(window, maxBatchSize, this::send, executor,
+                metrics.histogram(name(JsonRpcClient.class, "batch-size"))));
+        this.retries = metrics.meter(name(JsonRpcClient.class, "retries"));
     }
 
     public <T> T proxy(final Class<T> remoteInterface) {
@@ -26,6 +60,88 @@ public class JsonRpcClient extends JsonRpcServer {
 
     @SuppressWarnings("unchecked")
     public <T> T proxy(final String namespace, final Class<T> remoteInterface) {
-        return Reflection.newProxy(remoteInterface, (proxy, method, args) -> call(namespace, method, args, transport.getMessageOutput()).get());
+        return Reflection.newProxy(remoteInterface, (proxy, method, args) -> proxyCall(namespace, method, args, transport.getMessageOutput()));
+    }
+
+    /**
+     * Calls made through a proxy to methods marked {@link Idempotent} are retried, over a fresh output from the
+     * transport, if they fail because of the transport.
+     */
+    @Override
+    protected <T> ListenableFuture<T> call(final String namespace, final Method method, final Object[] params, final ByteSink output) {
+        if (maxRetries == 0 || !method.isAnnotationPresent(Idempotent.class)) {
+            return super.call(namespace, method, params, output);
+        }
+
+        return retry(attempt(namespace, method, params, output), namespace, method, params, 0);
+    }
+
+    private <T> ListenableFuture<T> attempt(final String namespace, final Method method, final Object[] params, final ByteSink output) {
+        try {
+            return super.call(namespace, method, params, output);
+        } catch (RuntimeException e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    private <T> ListenableFuture<T> retry(final ListenableFuture<T> future, final String namespace, final Method method,
+                                          final Object[] params, final int attempt) {
+        if (attempt >= maxRetries) {
+            return future;
+        }
+
+        return Futures.withFallback(future, t -> {
+            if (!Iterables.any(Throwables.getCausalChain(t), TransportException.class::isInstance)) {
+                return Futures.immediateFailedFuture(t);
+            }
+
+            retries.mark();
+
+            // Give the transport a chance to reconnect before trying again
+            final SettableFuture<Void> delay = SettableFuture.create();
+            timeouts.newTimeout(new TimeoutTask() {
+                @Override
+                public void run() {
+                    delay.set(null);
+                }
+
+                @Override
+                protected void abort(final Throwable cause) {
+                    delay.setException(cause);
+                }
+            }, retryBackoff.delay(attempt));
+
+            final AsyncFunction<Void, T> next = v -> retry(
+                    attempt(namespace, method, params, transport.getMessageOutput()), namespace, method, params, attempt + 1);
+            return Futures.transform(delay, next);
+        });
+    }
+
+    @Override
+    protected void sendRequest(final JsonRpcRequest request, final PendingResponse<?> pending, final ByteSink output) {
+        if (batcher.isPresent()) {
+            batcher.get().add(request, pending, output);
+        } else {
+            super.sendRequest(request, pending, output);
+        }
+    }
+
+    public <T> ListenableFuture<T> callAsync(final String method, final Parameters<String, ?> params, final TypeReference<T> type) {
+        return callAsync(method, params, type, requestTimeout);
+    }
+
+    public <T> ListenableFuture<T> callAsync(final String method, final Parameters<String, ?> params, final TypeReference<T> type,
+                                             final Duration timeout) {
+        try {
+            return call(method, params, type.getType(), timeout, transport.getMessageOutput());
+        } catch (IOException e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        batcher.ifPresent(RequestBatcher::close);
+        super.close();
     }
 }
@@ -1,5 +1,6 @@
 package com.jamierf.jsonrpc;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 
@@ -18,6 +19,7 @@ import com.google.common.collect.Lists;
 import com.jamierf.jsonrpc.codec.CodecFactory;
 import com.jamierf.jsonrpc.filter.RequestHandler;
 import com.jamierf.jsonrpc.transport.Transport;
+import com.jamierf.jsonrpc.util.Backoff;
 
 public class JsonRpcClientBuilder {
     private static final int DEFAULT_NUM_THREADS = 10;
@@ -32,6 +34,11 @@ public class JsonRpcClientBuilder {
     private Optional<ExecutorService> executor = Optional.empty();
     private Optional<MetricRegistry> metrics = Optional.empty();
     private Supplier<Map<String, ?>> metadata = Collections::emptyMap;
+    private int maxRetries = 0;
+    private Duration retryBackoff = Duration.ofMillis(100);
+    private Optional<Duration> batchWindow = Optional.empty();
+    private int maxBatchSize = 0;
+    private Optional<IdGenerator> idGenerator = Optional.empty();
 
     protected JsonRpcClientBuilder(final Transport transport, final CodecFactory codecFactory) {
         this.transport = checkNotNull(transport);
@@ -64,6 +71,37 @@ public class JsonRpcClientBuilder {
         return this;
     }
 
+    /**
+     * Retry calls to methods marked {@link com.jamierf.jsonrpc.api.Idempotent} which fail because of the transport,
+     * waiting for a jittered backoff starting at the given delay between attempts.
+     */
+    public JsonRpcClientBuilder retries(final int maxRetries, final Duration retryBackoff) {
+        checkArgument(maxRetries >= 0, "Number of retries must not be negative");
+        this.maxRetries = maxRetries;
+        this.retryBackoff = checkNotNull(retryBackoff);
+        return this;
+    }
+
+    /**
+     * Collect requests made within the given window into a single batch message, sending early if the batch reaches
+     * the given size.
+     */
+    public JsonRpcClientBuilder batching(final Duration window, final int maxBatchSize) {
+        checkArgument(!window.isNegative() && !window.isZero(), "Batch window must be positive");
+        checkArgument(maxBatchSize > 1, "Max batch size must be greater than 1");
+        this.batchWindow = Optional.of(window);
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Generate request ids with the given generator, rather than numbering requests sequentially.
+     */
+    public JsonRpcClientBuilder idGenerator(final IdGenerator idGenerator) {
+        this.idGenerator = Optional.of(idGenerator);
+        return this;
+    }
+
     public JsonRpcClientBuilder filter(final RequestHandler requestHandler) {
         requestHandlerChain.add(requestHandler);
         return this;
@@ -78,7 +116,12 @@ public class JsonRpcClientBuilder {
                 metrics.orElseGet(() -> SharedMetricRegistries.getOrCreate(DEFAULT_METRIC_REGISTRY_NAME)),
                 codecFactory,
                 metadata,
-                requestHandlerChain
+                requestHandlerChain,
+                maxRetries,
+                new Backoff(retryBackoff, retryBackoff.multipliedBy(1 << Math.min(maxRetries, 10))),
+                batchWindow,
+                maxBatchSize,
+                idGenerator.orElseGet(IdGenerator::sequential)
         );
     }
 }
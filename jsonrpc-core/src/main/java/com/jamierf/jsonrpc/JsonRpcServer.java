@@ -1,6 +1,8 @@
 package com.jamierf.jsonrpc;
 
 import static com.codahale.metrics.MetricRegistry.name;
+import static com.jamierf.jsonrpc.util.Reflections.isFuture;
+import static com.jamierf.jsonrpc.util.Reflections.resultType;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -13,8 +15,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
@@ -22,19 +25,23 @@ import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteSink;
 import com.google.common.io.ByteSource;
+import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.jamierf.jsonrpc.api.ErrorMessage;
 import com.jamierf.jsonrpc.api.JsonRpcMessage;
 import com.jamierf.jsonrpc.api.JsonRpcRequest;
@@ -45,132 +52,333 @@ import com.jamierf.jsonrpc.codec.Codec;
 import com.jamierf.jsonrpc.codec.CodecFactory;
 import com.jamierf.jsonrpc.error.CodedException;
 import com.jamierf.jsonrpc.filter.RequestHandler;
+import com.jamierf.jsonrpc.limit.ConcurrencyLimit;
+import com.jamierf.jsonrpc.metrics.LatencyMetrics;
+import com.jamierf.jsonrpc.metrics.Stage;
 import com.jamierf.jsonrpc.transport.Transport;
+import com.jamierf.jsonrpc.util.HashedWheelTimer;
+import com.jamierf.jsonrpc.util.MoreFutures;
 import com.jamierf.jsonrpc.util.TypeReference;
 
 public class JsonRpcServer {
 
     private static final byte[] DELIMITER = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
     private static final Logger LOGGER = LoggerFactory.getLogger(JsonRpcServer.class);
+    private static final Duration TIMER_TICK_DURATION = Duration.ofMillis(10);
+    private static final int TIMER_TICKS_PER_WHEEL = 512;
 
     protected final Transport transport;
     protected final Duration requestTimeout;
     protected final MetricRegistry metrics;
     protected final Codec codec;
-    protected final Map<String, PendingResponse<?>> requests;
-    protected final Map<String, RequestMethod> methods;
+    protected final PendingRequests requests;
+    // Replaced as a whole on registration, so lookups never contend with registering
+    protected volatile ImmutableMap<String, RequestMethod> methods;
     protected final ListeningExecutorService executor;
     protected final Supplier<Map<String, ?>> metadata;
-    protected final List<RequestHandler> requestHandlerChain;
-    protected final ScheduledExecutorService cleaner;
+    protected final RequestHandler requestHandler;
+    protected final HashedWheelTimer timeouts;
+    protected final IdGenerator idGenerator;
+    private final InFlightLimits inFlightLimits;
+    protected final LatencyMetrics latencies;
+    private final Timer decodeTimer;
+    private final Timer queueWaitTimer;
+    private final Timer handlerTimer;
+    private final Timer serializeTimer;
+    private final Timer writeTimer;
+    private final Timer responseTimer;
+    private final Meter timeoutsScheduled;
+    private final Meter timeoutsExpired;
+    private final Meter timeoutsCancelled;
+    private final Optional<ConcurrencyLimiters> concurrencyLimiters;
+    private final ConcurrentMap<Method, Parameters.Schema<String>> parameterSchemas;
 
     protected JsonRpcServer(final Transport transport, final boolean useNamedParameters, final Duration requestTimeout,
                             final ListeningExecutorService executor, final MetricRegistry metrics, final CodecFactory codecFactory,
-                            final Supplier<Map<String, ?>> metadata, final List<RequestHandler> requestHandlerChain) {
+                            final Supplier<Map<String, ?>> metadata, final List<RequestHandler> requestHandlerChain,
+                            final int maxInFlightRequests, final int maxInFlightRequestsPerConnection,
+                            final Optional<Supplier<? extends ConcurrencyLimit>> concurrencyLimit,
+                            final String name, final IdGenerator idGenerator) {
         this.transport = transport;
         this.requestTimeout = requestTimeout;
         this.metrics = metrics;
         this.executor = executor;
         this.metadata = metadata;
-
-        requests = Maps.newConcurrentMap();
-        methods = Maps.newConcurrentMap();
+        this.idGenerator = idGenerator;
+        this.inFlightLimits = new InFlightLimits(maxInFlightRequests, maxInFlightRequestsPerConnection, metrics);
+        this.concurrencyLimiters = concurrencyLimit.map(limit -> new ConcurrencyLimiters(name, limit, metrics));
+
+        latencies = new LatencyMetrics(metrics, JsonRpcServer.class);
+        decodeTimer = latencies.getStage(Stage.DECODE);
+        queueWaitTimer = latencies.getStage(Stage.QUEUE_WAIT);
+        handlerTimer = latencies.getStage(Stage.HANDLER);
+        serializeTimer = latencies.getStage(Stage.SERIALIZE);
+        writeTimer = latencies.getStage(Stage.WRITE);
+        responseTimer = LatencyMetrics.timer(metrics, name(JsonRpcServer.class, "process-response"));
+        timeoutsScheduled = metrics.meter(name(JsonRpcServer.class, "timeouts", "scheduled"));
+        timeoutsExpired = metrics.meter(name(JsonRpcServer.class, "timeouts", "expired"));
+        timeoutsCancelled = metrics.meter(name(JsonRpcServer.class, "timeouts", "cancelled"));
+
+        requests = new PendingRequests();
+        parameterSchemas = Maps.newConcurrentMap();
+        methods = ImmutableMap.of();
 
         codec = codecFactory.create(useNamedParameters,
-                Maps.transformValues(requests, PendingResponse::getType)::get,
-                Maps.transformValues(methods, RequestMethod::getParameterTypes)::get,
+                this::responseType,
+                this::parameterTypes,
                 metrics);
 
         transport.addListener(this::onMessage);
 
-        this.requestHandlerChain = Lists.newLinkedList(requestHandlerChain);
-        this.requestHandlerChain.add(RequestMethod::invoke);
+        this.requestHandler = compile(requestHandlerChain);
 
-        cleaner = Executors.newSingleThreadScheduledExecutor();
+        timeouts = new HashedWheelTimer(new ThreadFactoryBuilder().setNameFormat("jsonrpc-timer-%d").setDaemon(true).build(),
+                TIMER_TICK_DURATION, TIMER_TICKS_PER_WHEEL);
     }
 
     public <T> void register(final T instance, final Class<T> type) {
         register(null, instance, type);
     }
 
-    public <T> void register(final String namespace, final T instance, final Class<T> type) {
+    public synchronized <T> void register(final String namespace, final T instance, final Class<T> type) {
+        concurrencyLimiters.ifPresent(limiters -> limiters.register(namespace));
+
+        final Map<String, RequestMethod> registered = Maps.newHashMap(methods);
         for (final Method method : type.getMethods()) {
-            methods.put(zipNamespace(namespace, method.getName()), new RequestMethod(namespace, method, instance));
+            final String name = zipNamespace(namespace, method.getName());
+            registered.put(name, new RequestMethod(namespace, method, instance, latencies.getMethod(name)));
+        }
+
+        methods = ImmutableMap.copyOf(registered);
+    }
+
+    /**
+     * Compiles the filters into a single handler, which passes each request to the filters in turn and then on to
+     * the method itself until one of them handles it. Without filters requests go straight to the method.
+     */
+    private static RequestHandler compile(final List<RequestHandler> filters) {
+        if (filters.isEmpty()) {
+            return RequestMethod::invoke;
         }
+
+        final RequestHandler[] chain = filters.toArray(new RequestHandler[filters.size() + 1]);
+        chain[filters.size()] = RequestMethod::invoke;
+
+        return (method, params) -> {
+            for (final RequestHandler handler : chain) {
+                final Optional<Result<?>> result = handler.handle(method, params);
+                if (result.isPresent()) {
+                    return result;
+                }
+            }
+
+            return Optional.empty();
+        };
+    }
+
+    private Parameters<String, TypeReference<?>> parameterTypes(final String name) {
+        final RequestMethod method = methods.get(name);
+        return method == null ? null : method.getParameterTypes();
+    }
+
+    /**
+     * The latency of each stage of handling messages, and of handling requests to each registered method.
+     */
+    public LatencyMetrics getLatencyMetrics() {
+        return latencies;
     }
 
     protected void send(final Object message, final ByteSink target) {
-        final Timer.Context timer = metrics.timer(name(JsonRpcServer.class, "send-message")).time();
+        final long start = System.nanoTime();
+        final long serialized;
         try (final OutputStream out = target.openStream()) {
             codec.writeValue(out, message);
             out.write(DELIMITER);
+            serialized = System.nanoTime();
         } catch (IOException e) {
             throw Throwables.propagate(e);
-        } finally {
-            timer.stop();
         }
+
+        // Closing the stream is what hands the message over to the transport
+        serializeTimer.update(serialized - start, TimeUnit.NANOSECONDS);
+        writeTimer.update(System.nanoTime() - serialized, TimeUnit.NANOSECONDS);
     }
 
     protected <T> ListenableFuture<T> call(final String namespace, final Method method, final Object[] params, final ByteSink output) {
         return call(zipNamespace(namespace, method.getName()),
-            Parameters.zip(method.getParameters(), params),
-            method.getGenericReturnType(), output);
+            Parameters.zip(parameterSchema(method), params),
+            resultType(method), output);
+    }
+
+    /**
+     * The names of the method's parameters, built once per method rather than on every call through a proxy.
+     */
+    private Parameters.Schema<String> parameterSchema(final Method method) {
+        final Parameters.Schema<String> schema = parameterSchemas.get(method);
+        if (schema != null) {
+            return schema;
+        }
+
+        return parameterSchemas.computeIfAbsent(method, m -> Parameters.Schema.of(m.getParameters()));
+    }
+
+    /**
+     * Invokes a remote method on behalf of a proxy. Methods declaring a future return type are given the pending
+     * future, anything else blocks until the response is received.
+     */
+    protected Object proxyCall(final String namespace, final Method method, final Object[] params, final ByteSink output)
+            throws InterruptedException, ExecutionException {
+        final ListenableFuture<Object> future = call(namespace, method, params, output);
+        if (isFuture(method.getReturnType())) {
+            return MoreFutures.adapt(future, method.getReturnType());
+        }
+
+        return future.get();
     }
 
     protected <T> ListenableFuture<T> call(final String method, final Parameters<String, ?> params, final Type returnType, final ByteSink output) {
-        final JsonRpcRequest request = JsonRpcRequest.method(method, params, metadata.get());
+        return call(method, params, returnType, requestTimeout, output);
+    }
+
+    protected <T> ListenableFuture<T> call(final String method, final Parameters<String, ?> params, final Type returnType,
+                                           final Duration timeout, final ByteSink output) {
+        final JsonRpcRequest request = new JsonRpcRequest(method, params, idGenerator.nextId(), metadata.get());
 
-        final PendingResponse<T> pending = new PendingResponse<>(returnType);
+        final PendingResponse<T> pending = new PendingResponse<>(request.getId(), returnType);
         if (pending.expectsResponse()) {
-            // Add the pending request to the request map, with a hook to remove it on completion
-            requests.put(request.getId(), pending);
-            pending.getFuture().addListener(() -> requests.remove(request.getId()), MoreExecutors.directExecutor());
+            // The pending request removes itself from the table once completed
+            requests.add(pending);
+
+            if (output instanceof Transport.CallListener) {
+                trackCall(pending, (Transport.CallListener) output);
+            }
         }
 
-        send(request, output);
+        sendRequest(request, pending, output);
 
         if (pending.expectsResponse()) {
-            // Add a scheduled task to timeout this request if we haven't received a response
-			cleaner.schedule(() -> pending.complete(new TimeoutException(String.format(
-					"Request timed out after %s", requestTimeout))), requestTimeout.toMillis(),
-					TimeUnit.MILLISECONDS);
+            scheduleTimeout(pending, timeout);
         }
 
         return pending.getFuture();
     }
 
-    protected Optional<JsonRpcResponse<?>> handleRequest(final JsonRpcRequest request, final ByteSink output) {
-        final Timer.Context timer = metrics.timer(name("api", request.getMethod())).time();
+    protected void sendRequest(final JsonRpcRequest request, final PendingResponse<?> pending, final ByteSink output) {
         try {
-            final RequestMethod method = methods.get(request.getMethod());
-            if (method == null) {
-                return Optional.of(request.error(ErrorMessage.CODE_METHOD_NOT_FOUND,
-                        "No such method: " + request.getMethod(), metadata.get()));
+            send(request, output);
+        } catch (RuntimeException e) {
+            // Fail the request so it doesn't linger in the request map
+            pending.complete(e);
+            throw e;
+        }
+    }
+
+    private TypeReference<?> responseType(final String id) {
+        final PendingResponse<?> pending = requests.get(id);
+        return pending == null ? null : pending.getType();
+    }
+
+    private static void trackCall(final PendingResponse<?> pending, final Transport.CallListener listener) {
+        final long startTime = System.nanoTime();
+        listener.onCallStarted(pending);
+
+        Futures.addCallback(pending.getFuture(), new FutureCallback<Object>() {
+            @Override
+            public void onSuccess(final Object result) {
+                listener.onCallCompleted(pending, System.nanoTime() - startTime, true);
             }
 
-            RequestContext.set(this, request.getMetadata(), output);
+            @Override
+            public void onFailure(final Throwable t) {
+                // An error response still means the remote side is responding
+                listener.onCallCompleted(pending, System.nanoTime() - startTime, t instanceof CodedException);
+            }
+        });
+    }
 
-            // Return the response from the first handler in the chain that handles it
-            final Optional<Result<?>> result = requestHandlerChain.stream()
-                .map(h -> h.handle(method, request.getParams()))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .findFirst();
+    private void scheduleTimeout(final PendingResponse<?> pending, final Duration timeout) {
+        // Add a scheduled task to timeout this request if we haven't received a response
+        final HashedWheelTimer.Timeout task;
+        try {
+            task = timeouts.newTimeout(new TimeoutTask() {
+                @Override
+                public void run() {
+                    timeoutsExpired.mark();
+                    pending.complete(new TimeoutException(String.format("Request timed out after %s", timeout)));
+                }
 
-            RequestContext.clear();
+                @Override
+                protected void abort(final Throwable cause) {
+                    pending.fail(cause);
+                }
+            }, timeout);
+        } catch (IllegalStateException e) {
+            // Closed, so the response would never be read anyway
+            pending.fail(e);
+            return;
+        }
 
-            return result.map(r -> request.response(r, metadata.get()));
+        timeoutsScheduled.mark();
+
+        // Cancel the timeout as soon as the request completes so it doesn't linger in the timer
+        pending.getFuture().addListener(() -> {
+            if (task.cancel()) {
+                timeoutsCancelled.mark();
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    protected ListenableFuture<Optional<JsonRpcResponse<?>>> handleRequest(final JsonRpcRequest request, final ByteSink output) {
+        final RequestMethod method = methods.get(request.getMethod());
+        if (method == null) {
+            return Futures.immediateFuture(Optional.of(request.error(ErrorMessage.CODE_METHOD_NOT_FOUND,
+                    "No such method: " + request.getMethod(), metadata.get())));
+        }
+
+        final long start = System.nanoTime();
+
+        ListenableFuture<Optional<JsonRpcResponse<?>>> response;
+        try {
+            final Optional<Result<?>> result;
+            try (final RequestContext.Scope scope = RequestContext.open(this, request.getMetadata(), output)) {
+                result = requestHandler.handle(method, request.getParams());
+            }
+
+            final Function<Optional<Result<?>>, Optional<JsonRpcResponse<?>>> toResponse =
+                    r -> r.map(value -> request.response(value, metadata.get()));
+            response = Futures.transform(awaitResult(method, result), toResponse);
         } catch (Exception e) {
+            response = Futures.immediateFailedFuture(e);
+        }
+
+        response = Futures.withFallback(response, e -> {
             LOGGER.warn("Error handling request " + request.getId(), e);
-            return Optional.of(request.error(ErrorMessage.CODE_INTERNAL_ERROR, e.getMessage(), metadata.get()));
-        } finally {
-            timer.stop();
+            return Futures.immediateFuture(Optional.of(request.error(
+                    ErrorMessage.CODE_INTERNAL_ERROR, e.getMessage(), metadata.get())));
+        });
+
+        response.addListener(() -> {
+            final long elapsed = System.nanoTime() - start;
+            method.getTimer().update(elapsed, TimeUnit.NANOSECONDS);
+            handlerTimer.update(elapsed, TimeUnit.NANOSECONDS);
+        }, MoreExecutors.directExecutor());
+        return response;
+    }
+
+    private static ListenableFuture<Optional<Result<?>>> awaitResult(final RequestMethod method, final Optional<Result<?>> result) {
+        if (!method.isAsync() || !result.isPresent()) {
+            return Futures.immediateFuture(result);
         }
+
+        // The method returned a future, so respond with whatever it completes with
+        final Function<Object, Optional<Result<?>>> toResult =
+                value -> method.expectsResponse() ? Optional.of(new Result<>(value)) : Optional.empty();
+        return Futures.transform(MoreFutures.listenable(result.get().get()), toResult);
     }
 
     @SuppressWarnings("unchecked")
     protected <T> void handleResponse(final JsonRpcResponse<T> response, final ByteSink output) {
-        final Timer.Context timer = metrics.timer(name(JsonRpcServer.class, "process-response")).time();
+        final Timer.Context timer = responseTimer.time();
         try {
             final PendingResponse<T> pending = (PendingResponse<T>) requests.get(response.getId());
             if (pending == null) {
@@ -188,22 +396,22 @@ public class JsonRpcServer {
         }
     }
 
-    protected Optional<JsonRpcResponse<?>> handleMessage(final JsonRpcMessage message, final ByteSink output) {
+    protected ListenableFuture<Optional<JsonRpcResponse<?>>> handleMessage(final JsonRpcMessage message, final ByteSink output) {
         if (message instanceof JsonRpcRequest) {
             return handleRequest((JsonRpcRequest) message, output);
         }
 
         if (message instanceof JsonRpcResponse<?>) {
             handleResponse((JsonRpcResponse<?>) message, output);
-            return Optional.empty();
+            return Futures.immediateFuture(Optional.empty());
         }
 
-        return Optional.of(JsonRpcResponse.error(
-                ErrorMessage.CODE_INTERNAL_ERROR, "Unknown message type: " + message, metadata.get()));
+        return Futures.immediateFuture(Optional.of(JsonRpcResponse.error(
+                ErrorMessage.CODE_INTERNAL_ERROR, "Unknown message type: " + message, metadata.get())));
     }
 
     protected Collection<JsonRpcMessage> readMessage(final ByteSource input) throws IOException {
-        final Timer.Context timer = metrics.timer(name(JsonRpcServer.class, "read-message")).time();
+        final Timer.Context timer = decodeTimer.time();
         try (final InputStream in = input.openStream()) {
             return codec.readValue(in, new TypeReference<Collection<JsonRpcMessage>>() {});
         } finally {
@@ -218,11 +426,11 @@ public class JsonRpcServer {
         // Submit all messages for handling
         final ListenableFuture<List<Optional<JsonRpcResponse<?>>>> future = Futures.allAsList(
             FluentIterable.from(messages)
-                .transform(m -> executor.submit(() -> handleMessage(m, output)))
+                .transform(m -> submitMessage(m, output))
                 .toList()
         );
 
-        // Add a a listener to respond once the messages are handled
+        // Add a a listener to respond once the messages are handled, including any asynchronous results
         future.addListener( () -> {
             // Combine all responses and filter out requests that don't require a response
             final Collection<JsonRpcResponse<?>> responses = FluentIterable.from(Futures.getUnchecked(future))
@@ -246,8 +454,90 @@ public class JsonRpcServer {
         }, MoreExecutors.directExecutor() );
     }
 
+    private ListenableFuture<Optional<JsonRpcResponse<?>>> submitMessage(final JsonRpcMessage message, final ByteSink output) {
+        // Responses complete requests we're already waiting on, so are never limited
+        if (!(message instanceof JsonRpcRequest)) {
+            return dispatchMessage(message, output);
+        }
+
+        final JsonRpcRequest request = (JsonRpcRequest) message;
+        if (!inFlightLimits.tryAcquire(output)) {
+            return overloaded(request);
+        }
+
+        final Optional<Runnable> limit = acquireConcurrencyLimit(request);
+        if (!limit.isPresent()) {
+            inFlightLimits.release(output);
+            return overloaded(request);
+        }
+
+        final Runnable release = () -> {
+            limit.get().run();
+            inFlightLimits.release(output);
+        };
+
+        final ListenableFuture<Optional<JsonRpcResponse<?>>> response;
+        try {
+            response = dispatchMessage(request, output);
+        } catch (RejectedExecutionException e) {
+            release.run();
+            return overloaded(request);
+        }
+
+        response.addListener(release, MoreExecutors.directExecutor());
+        return response;
+    }
+
+    private ListenableFuture<Optional<JsonRpcResponse<?>>> dispatchMessage(final JsonRpcMessage message, final ByteSink output) {
+        final long submitted = System.nanoTime();
+        return Futures.dereference(executor.submit(() -> {
+            queueWaitTimer.update(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            return handleMessage(message, output);
+        }));
+    }
+
+    private Optional<Runnable> acquireConcurrencyLimit(final JsonRpcRequest request) {
+        // Unknown methods are answered straight away, so aren't worth limiting
+        final RequestMethod method = methods.get(request.getMethod());
+        if (!concurrencyLimiters.isPresent() || method == null) {
+            return Optional.of(() -> {});
+        }
+
+        return concurrencyLimiters.get().tryAcquire(method.getNamespace());
+    }
+
+    private ListenableFuture<Optional<JsonRpcResponse<?>>> overloaded(final JsonRpcRequest request) {
+        LOGGER.debug("Rejecting request {}, too many requests in flight", request.getId());
+
+        // Fail fast so the caller can back off, unless it isn't waiting for a response at all
+        final RequestMethod method = methods.get(request.getMethod());
+        if (method != null && !method.expectsResponse()) {
+            return Futures.immediateFuture(Optional.empty());
+        }
+
+        return Futures.immediateFuture(Optional.of(request.error(ErrorMessage.CODE_SERVER_OVERLOADED,
+                "Server overloaded", metadata.get())));
+    }
+
     public void close() {
         transport.close();
+
+        // Requests still awaiting a response would otherwise never complete
+        final IllegalStateException cause = new IllegalStateException("Closed before the request completed");
+        for (final HashedWheelTimer.Timeout timeout : timeouts.stop()) {
+            if (timeout.getTask() instanceof TimeoutTask) {
+                ((TimeoutTask) timeout.getTask()).abort(cause);
+            }
+        }
+
+        concurrencyLimiters.ifPresent(ConcurrencyLimiters::close);
+    }
+
+    /**
+     * A task scheduled on the timer, which is aborted instead if the server closes before it runs.
+     */
+    protected abstract static class TimeoutTask implements Runnable {
+        protected abstract void abort(final Throwable cause);
     }
 
     protected static String zipNamespace(final String... parts) {
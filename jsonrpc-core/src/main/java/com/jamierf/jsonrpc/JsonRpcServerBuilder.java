@@ -1,5 +1,6 @@
 package com.jamierf.jsonrpc;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 
@@ -17,6 +18,7 @@ import com.codahale.metrics.SharedMetricRegistries;
 import com.google.common.collect.Lists;
 import com.jamierf.jsonrpc.codec.CodecFactory;
 import com.jamierf.jsonrpc.filter.RequestHandler;
+import com.jamierf.jsonrpc.limit.ConcurrencyLimit;
 import com.jamierf.jsonrpc.transport.Transport;
 
 public class JsonRpcServerBuilder {
@@ -32,6 +34,10 @@ public class JsonRpcServerBuilder {
     private Optional<ExecutorService> executor = Optional.empty();
     private Optional<MetricRegistry> metrics = Optional.empty();
     private Supplier<Map<String, ?>> metadata = Collections::emptyMap;
+    private int maxInFlightRequests = InFlightLimits.UNLIMITED;
+    private int maxInFlightRequestsPerConnection = InFlightLimits.UNLIMITED;
+    private Optional<Supplier<? extends ConcurrencyLimit>> concurrencyLimit = Optional.empty();
+    private String name = JsonRpcServer.class.getName();
 
     protected JsonRpcServerBuilder(final Transport transport, final CodecFactory codecFactory) {
         this.transport = checkNotNull(transport);
@@ -64,6 +70,49 @@ public class JsonRpcServerBuilder {
         return this;
     }
 
+    /**
+     * Limit the number of requests being handled at once. Requests over the limit are rejected straight away with a
+     * server overloaded error.
+     */
+    public JsonRpcServerBuilder maxInFlightRequests(final int maxInFlightRequests) {
+        checkArgument(maxInFlightRequests > 0, "Max in flight requests must be positive");
+        this.maxInFlightRequests = maxInFlightRequests;
+        return this;
+    }
+
+    /**
+     * Limit the number of requests being handled at once from a single connection. Transports which support it
+     * stop reading from a connection at its limit, otherwise requests over the limit are rejected with a server
+     * overloaded error.
+     */
+    public JsonRpcServerBuilder maxInFlightRequestsPerConnection(final int maxInFlightRequestsPerConnection) {
+        checkArgument(maxInFlightRequestsPerConnection > 0, "Max in flight requests per connection must be positive");
+        this.maxInFlightRequestsPerConnection = maxInFlightRequestsPerConnection;
+        return this;
+    }
+
+    /**
+     * Adapt the number of requests handled at once from their observed latency, using a separate limit created by
+     * the given factory for each namespace. Requests over the current limit are rejected with a server overloaded
+     * error.
+     *
+     * @see com.jamierf.jsonrpc.limit.AimdLimit
+     * @see com.jamierf.jsonrpc.limit.GradientLimit
+     */
+    public JsonRpcServerBuilder concurrencyLimit(final Supplier<? extends ConcurrencyLimit> concurrencyLimit) {
+        this.concurrencyLimit = Optional.of(concurrencyLimit);
+        return this;
+    }
+
+    /**
+     * Name the server in the metrics which belong to it alone, such as the gauges of its concurrency limits. Servers
+     * sharing a metric registry must have distinct names. Defaults to the name of the server class.
+     */
+    public JsonRpcServerBuilder name(final String name) {
+        this.name = checkNotNull(name);
+        return this;
+    }
+
     public JsonRpcServerBuilder filter(final RequestHandler requestHandler) {
         requestHandlerChain.add(requestHandler);
         return this;
@@ -78,7 +127,12 @@ public class JsonRpcServerBuilder {
                 metrics.orElseGet(() -> SharedMetricRegistries.getOrCreate(DEFAULT_METRIC_REGISTRY_NAME)),
                 codecFactory,
                 metadata,
-                requestHandlerChain
+                requestHandlerChain,
+                maxInFlightRequests,
+                maxInFlightRequestsPerConnection,
+                concurrencyLimit,
+                name,
+                IdGenerator.sequential()
         );
     }
 }
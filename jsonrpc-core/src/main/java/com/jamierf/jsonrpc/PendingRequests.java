@@ -0,0 +1,121 @@
+package com.jamierf.jsonrpc;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.collect.Maps;
+
+/**
+ * The requests awaiting a response, by id. Requests with numeric ids, as generated by
+ * {@link IdGenerator#sequential()}, are held in a ring indexed by their id so adding, finding and removing them is a
+ * single array access without locking or allocation. Anything else, or a request whose slot is still taken by one
+ * a whole ring earlier, falls back to a map.
+ */
+public class PendingRequests {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    // Enough digits to never overflow a long
+    private static final int MAX_SEQUENCE_DIGITS = 18;
+
+    /**
+     * Parses a request id as a non-negative number, returning -1 if it isn't one. Numbers with leading zeros aren't
+     * accepted, so distinct ids never map to the same number.
+     */
+    static long sequence(final String id) {
+        if (id == null || id.isEmpty() || id.length() > MAX_SEQUENCE_DIGITS || (id.charAt(0) == '0' && id.length() > 1)) {
+            return -1;
+        }
+
+        long sequence = 0;
+        for (int i = 0; i < id.length(); i++) {
+            final char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            sequence = sequence * 10 + (c - '0');
+        }
+
+        return sequence;
+    }
+
+    private final AtomicReferenceArray<PendingResponse<?>> ring;
+    private final int mask;
+    private final ConcurrentMap<String, PendingResponse<?>> overflow;
+
+    public PendingRequests() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PendingRequests(final int capacity) {
+        checkArgument(capacity > 0 && capacity <= 1 << 30, "Capacity must be between 1 and 2^30");
+
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+
+        ring = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+        overflow = Maps.newConcurrentMap();
+    }
+
+    /**
+     * Adds a request, which removes itself once completed.
+     */
+    public void add(final PendingResponse<?> pending) {
+        pending.setOwner(this);
+
+        final long sequence = pending.getSequence();
+        if (sequence < 0 || !ring.compareAndSet(index(sequence), null, pending)) {
+            overflow.put(pending.getId(), pending);
+        }
+
+        // It may have completed before it could be found here to remove
+        if (pending.isComplete()) {
+            remove(pending);
+        }
+    }
+
+    public PendingResponse<?> get(final String id) {
+        final long sequence = sequence(id);
+        if (sequence >= 0) {
+            final PendingResponse<?> pending = ring.get(index(sequence));
+            if (pending != null && pending.getSequence() == sequence) {
+                return pending;
+            }
+        }
+
+        return overflow.get(id);
+    }
+
+    void remove(final PendingResponse<?> pending) {
+        final long sequence = pending.getSequence();
+        if (sequence >= 0 && ring.compareAndSet(index(sequence), pending, null)) {
+            return;
+        }
+
+        overflow.remove(pending.getId(), pending);
+    }
+
+    /**
+     * Counts the requests awaiting a response, which visits every slot of the ring.
+     */
+    public int size() {
+        int size = overflow.size();
+        for (int i = 0; i < ring.length(); i++) {
+            if (ring.get(i) != null) {
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    private int index(final long sequence) {
+        return (int) (sequence & mask);
+    }
+}
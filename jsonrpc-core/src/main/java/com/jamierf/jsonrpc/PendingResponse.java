@@ -6,31 +6,70 @@ import com.jamierf.jsonrpc.api.ErrorMessage;
 import com.jamierf.jsonrpc.api.JsonRpcResponse;
 import com.jamierf.jsonrpc.api.Result;
 import com.jamierf.jsonrpc.error.CodedException;
+import com.jamierf.jsonrpc.transport.Transport;
 import com.jamierf.jsonrpc.util.TypeReference;
 
 import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import static com.jamierf.jsonrpc.util.Reflections.classOf;
 import static com.jamierf.jsonrpc.util.Reflections.isVoid;
 import static com.jamierf.jsonrpc.util.TypeReference.reference;
 
-public class PendingResponse<T> {
+/**
+ * A request awaiting its response. The response, a timeout and a failure from the transport may all race to
+ * complete it, the first to do so wins and removes it from the table of pending requests it was added to.
+ */
+public class PendingResponse<T> implements Transport.PendingCall {
 
-    private final Type type;
+    private static final int STATE_PENDING = 0;
+    private static final int STATE_COMPLETE = 1;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<PendingResponse> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(PendingResponse.class, "state");
+
+    private final String id;
+    private final long sequence;
+    private final TypeReference<T> type;
     private final SettableFuture<T> future;
 
-    public PendingResponse(final Type type) {
-        this.type = type;
+    // Set before the response is published to the table, so visible to whoever completes it
+    private PendingRequests owner;
+
+    // Not private so the field updater can access it
+    volatile int state = STATE_PENDING;
+
+    public PendingResponse(final String id, final Type type) {
+        this.id = id;
+        this.sequence = PendingRequests.sequence(id);
+        this.type = reference(type);
         this.future = SettableFuture.create();
 
         // If no response is expected, immediately return null
         if (!expectsResponse()) {
+            state = STATE_COMPLETE;
             future.set(null);
         }
     }
 
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The id as a number, or -1 if it isn't one.
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    void setOwner(final PendingRequests owner) {
+        this.owner = owner;
+    }
+
     public boolean expectsResponse() {
-        return !isVoid(classOf(type));
+        return !isVoid(classOf(type.getType()));
     }
 
     public ListenableFuture<T> getFuture() {
@@ -38,34 +77,48 @@ public class PendingResponse<T> {
     }
 
     public TypeReference<T> getType() {
-        return reference(type);
+        return type;
     }
 
-    public synchronized void complete(final JsonRpcResponse<T> response) {
-        if (isComplete()) {
-            return;
-        }
-
+    public void complete(final JsonRpcResponse<T> response) {
         if (response.getError().isPresent()) {
             final ErrorMessage error = response.getError().get();
             complete(CodedException.fromErrorMessage(error));
         } else if (response.getResult().isPresent()) {
             final Result<T> result = response.getResult().get();
-            future.set(result.get());
+            if (markComplete()) {
+                future.set(result.get());
+            }
         } else {
             throw new IllegalStateException("Response doesn't include a result or error.");
         }
     }
 
-    public synchronized void complete(final Throwable exception) {
-        if (isComplete()) {
-            return;
+    public void complete(final Throwable exception) {
+        if (markComplete()) {
+            future.setException(exception);
+        }
+    }
+
+    private boolean markComplete() {
+        if (!STATE.compareAndSet(this, STATE_PENDING, STATE_COMPLETE)) {
+            return false;
         }
 
-        future.setException(exception);
+        // Remove before completing the future, so its listeners never see a completed request in the table
+        if (owner != null) {
+            owner.remove(this);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void fail(final Throwable cause) {
+        complete(cause);
     }
 
     public boolean isComplete() {
-        return future.isDone();
+        return state == STATE_COMPLETE;
     }
 }
@@ -0,0 +1,192 @@
+package com.jamierf.jsonrpc;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import com.codahale.metrics.Histogram;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteSink;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jamierf.jsonrpc.api.JsonRpcRequest;
+import com.jamierf.jsonrpc.transport.Transport;
+
+/**
+ * Collects requests written to the same output within a short window into a single batch, which is sent as one
+ * message once the window ends or the batch is full. Responses are matched to requests by id as usual.
+ * <p>
+ * Outputs which forward to another, such as the per request outputs of a load balancing transport, are batched by
+ * the output they forward to. A batch which fills up is sent by the caller adding the last request, and one whose
+ * window ends is sent on the executor, so the scheduler thread only keeps time.
+ */
+class RequestBatcher {
+
+    private final long window;
+    private final int maxBatchSize;
+    private final BiConsumer<Object, ByteSink> sender;
+    private final Executor executor;
+    private final Histogram batchSizes;
+    private final ScheduledExecutorService scheduler;
+
+    // Only outputs with a batch waiting to be sent are held, keyed by the output they are actually written to
+    private final ConcurrentMap<ByteSink, Batch> batches;
+
+    RequestBatcher(final Duration window, final int maxBatchSize, final BiConsumer<Object, ByteSink> sender,
+                   final Executor executor, final Histogram batchSizes) {
+        this.window = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.sender = sender;
+        this.executor = executor;
+        this.batchSizes = batchSizes;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("jsonrpc-batcher-%d").setDaemon(true).build());
+        batches = Maps.newConcurrentMap();
+    }
+
+    void add(final JsonRpcRequest request, final PendingResponse<?> pending, final ByteSink output) {
+        final Entry entry = new Entry(request, pending);
+
+        final ByteSink key;
+        try {
+            key = underlyingOutput(output);
+        } catch (IOException | RuntimeException e) {
+            pending.complete(e);
+            return;
+        }
+
+        // Retry if the batch was sent between looking it up and adding to it
+        Batch batch;
+        do {
+            batch = batches.computeIfAbsent(key, k -> new Batch(k, output));
+        } while (!batch.add(entry));
+    }
+
+    private static ByteSink underlyingOutput(final ByteSink output) throws IOException {
+        ByteSink underlying = output;
+        while (underlying instanceof Transport.ForwardingOutput) {
+            underlying = ((Transport.ForwardingOutput) underlying).getUnderlyingOutput();
+        }
+
+        return underlying;
+    }
+
+    /**
+     * Sends any requests still waiting for their window to end.
+     */
+    void close() {
+        batches.values().forEach(Batch::flush);
+        scheduler.shutdown();
+    }
+
+    private static final class Entry {
+        private final JsonRpcRequest request;
+        private final PendingResponse<?> pending;
+
+        private Entry(final JsonRpcRequest request, final PendingResponse<?> pending) {
+            this.request = request;
+            this.pending = pending;
+        }
+    }
+
+    /**
+     * The requests for one output within a single window. Once sent, a batch is removed and the next request to the
+     * same output starts a new one.
+     */
+    private final class Batch {
+        private final ByteSink key;
+        private final ByteSink output;
+        private final List<Entry> entries = Lists.newArrayList(); // Guarded by this
+        private boolean sent; // Guarded by this
+
+        /**
+         * The whole batch is written to the output of its first request, which forwards to the same place as the
+         * outputs of the others.
+         */
+        private Batch(final ByteSink key, final ByteSink output) {
+            this.key = key;
+            this.output = output;
+        }
+
+        /**
+         * Adds a request to this batch, returning false if the batch has already been sent.
+         */
+        private boolean add(final Entry entry) {
+            synchronized (this) {
+                if (sent) {
+                    return false;
+                }
+
+                entries.add(entry);
+
+                // The first request in a batch starts the window
+                if (entries.size() < maxBatchSize && (entries.size() > 1 || schedule())) {
+                    return true;
+                }
+
+                markSent();
+            }
+
+            send();
+            return true;
+        }
+
+        private boolean schedule() {
+            try {
+                scheduler.schedule(this::flushOnExecutor, window, TimeUnit.NANOSECONDS);
+                return true;
+            } catch (RejectedExecutionException e) {
+                // We've been closed, so send straight away
+                return false;
+            }
+        }
+
+        private void flushOnExecutor() {
+            try {
+                executor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            synchronized (this) {
+                if (sent) {
+                    return;
+                }
+
+                markSent();
+            }
+
+            send();
+        }
+
+        private void markSent() {
+            sent = true;
+            batches.remove(key, this);
+        }
+
+        private void send() {
+            batchSizes.update(entries.size());
+
+            try {
+                // A single request is sent on its own, as it would be without batching
+                if (entries.size() == 1) {
+                    sender.accept(entries.get(0).request, output);
+                } else {
+                    sender.accept(Lists.transform(entries, e -> e.request), output);
+                }
+            } catch (RuntimeException e) {
+                entries.forEach(entry -> entry.pending.complete(e));
+            }
+        }
+    }
+}
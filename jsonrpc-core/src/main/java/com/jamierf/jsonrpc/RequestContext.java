@@ -2,6 +2,8 @@ package com.jamierf.jsonrpc;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import com.google.common.io.ByteSink;
 import com.google.common.reflect.Reflection;
@@ -10,18 +12,94 @@ public final class RequestContext {
 
 	private static final ThreadLocal<RequestContext> context = new ThreadLocal<>();
 
-	public synchronized static void set( final JsonRpcServer server, final Map<String, ?> metadata, final ByteSink output ) {
-		context.set(new RequestContext(server, metadata, output));
+	/**
+	 * Makes a new context current for this thread until the returned scope is closed.
+	 */
+	public static Scope open( final JsonRpcServer server, final Map<String, ?> metadata, final ByteSink output ) {
+		return new RequestContext( server, metadata, output ).attach();
 	}
 
-	public synchronized static Optional<RequestContext> get() {
-		return Optional.ofNullable(context.get());
+	/**
+	 * Makes a new context current for this thread until {@link #clear()} is called.
+	 *
+	 * @deprecated use {@link #open(JsonRpcServer, Map, ByteSink)}, which restores any enclosing context when closed
+	 */
+	@Deprecated
+	public static void set( final JsonRpcServer server, final Map<String, ?> metadata, final ByteSink output ) {
+		open( server, metadata, output );
 	}
 
-	public synchronized static void clear() {
+	/**
+	 * Removes the current context from this thread.
+	 *
+	 * @deprecated close the {@link Scope} returned by {@link #open(JsonRpcServer, Map, ByteSink)} instead
+	 */
+	@Deprecated
+	public static void clear() {
 		context.remove();
 	}
 
+	public static Optional<RequestContext> get() {
+		return Optional.ofNullable(context.get());
+	}
+
+	/**
+	 * Wraps a task so it runs with the context that was current when it was wrapped, for use with asynchronous
+	 * continuations that may run on another thread.
+	 */
+	public static Runnable wrap( final Runnable task ) {
+		final Optional<RequestContext> current = get();
+		if ( !current.isPresent() ) {
+			return task;
+		}
+
+		return () -> {
+			try ( final Scope scope = current.get().attach() ) {
+				task.run();
+			}
+		};
+	}
+
+	public static <T> Callable<T> wrap( final Callable<T> task ) {
+		final Optional<RequestContext> current = get();
+		if ( !current.isPresent() ) {
+			return task;
+		}
+
+		return () -> {
+			try ( final Scope scope = current.get().attach() ) {
+				return task.call();
+			}
+		};
+	}
+
+	/**
+	 * Wraps an executor so that tasks submitted to it run with the context that was current when they were submitted.
+	 */
+	public static Executor wrap( final Executor executor ) {
+		return task -> executor.execute( wrap( task ) );
+	}
+
+	/**
+	 * Restores the previously current context, if any, when closed.
+	 */
+	public static final class Scope implements AutoCloseable {
+		private final RequestContext previous;
+
+		private Scope( final RequestContext previous ) {
+			this.previous = previous;
+		}
+
+		@Override
+		public void close() {
+			if ( previous == null ) {
+				context.remove();
+			} else {
+				context.set( previous );
+			}
+		}
+	}
+
 	private final JsonRpcServer server;
 	private final Map<String, ?> metadata;
 	private final ByteSink output;
@@ -33,6 +111,15 @@ public final class RequestContext {
 		this.output = output;
 	}
 
+	/**
+	 * Makes this context current for this thread until the returned scope is closed.
+	 */
+	public Scope attach() {
+		final Scope scope = new Scope( context.get() );
+		context.set( this );
+		return scope;
+	}
+
 	public <T> T proxy(final Class<T> remoteInterface) {
 		return proxy(null, remoteInterface);
 	}
@@ -40,7 +127,7 @@ public final class RequestContext {
 	@SuppressWarnings("unchecked")
 	public <T> T proxy(final String namespace, final Class<T> remoteInterface) {
 		return Reflection
-				.newProxy(remoteInterface, (proxy, method, args) -> server.call(namespace, method, args, output).get());
+				.newProxy(remoteInterface, (proxy, method, args) -> server.proxyCall(namespace, method, args, output));
 	}
 
 	public <T> Optional<T> get( final String key, final Class<T> type ) {
@@ -1,29 +1,39 @@
 package com.jamierf.jsonrpc;
 
+import static com.jamierf.jsonrpc.util.Reflections.isFuture;
 import static com.jamierf.jsonrpc.util.Reflections.isVoid;
+import static com.jamierf.jsonrpc.util.Reflections.resultType;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.util.Optional;
 
+import com.codahale.metrics.Timer;
 import com.google.common.base.Throwables;
 import com.jamierf.jsonrpc.api.Parameters;
 import com.jamierf.jsonrpc.api.Result;
+import com.jamierf.jsonrpc.util.MethodInvoker;
 import com.jamierf.jsonrpc.util.TypeReference;
 
 public class RequestMethod {
 
     private final String namespace;
     private final Method method;
-    private final Object instance;
+    private final MethodInvoker invoker;
     private final Parameters<String, TypeReference<?>> parameterTypes;
+    private final Type resultType;
+    private final boolean async;
+    private final Timer timer;
 
-    public RequestMethod(final String namespace, final Method method, final Object instance) {
+    public RequestMethod(final String namespace, final Method method, final Object instance, final Timer timer) {
         this.namespace = namespace;
         this.method = method;
-        this.instance = instance;
+        this.timer = timer;
 
+        invoker = MethodInvoker.compile(method, instance);
         parameterTypes = Parameters.typeReference(method.getParameters());
+        resultType = resultType(method);
+        async = isFuture(method.getReturnType());
     }
 
     public String getNamespace() {
@@ -34,20 +44,48 @@ public class RequestMethod {
         return method.getName();
     }
 
+    /**
+     * Times handling requests to this method, resolved once on registration rather than for every request.
+     */
+    public Timer getTimer() {
+        return timer;
+    }
+
     public Parameters<String, TypeReference<?>> getParameterTypes() {
         return parameterTypes;
     }
 
+    /**
+     * The type of the result, or of the value the returned future completes with for asynchronous methods.
+     */
+    public Type getResultType() {
+        return resultType;
+    }
+
+    public boolean expectsResponse() {
+        return !(resultType instanceof Class<?> && isVoid((Class<?>) resultType));
+    }
+
+    /**
+     * Whether this method returns a future which must complete before a response can be sent.
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
     public Optional<Result<?>> invoke(final Parameters params) {
+        final Object result;
         try {
-            final Object result = method.invoke(instance, params.positional());
-            if (!isVoid(method.getReturnType())) {
-                return Optional.of(new Result<>(result));
-            }
-
-            return Optional.empty();
-        } catch (IllegalAccessException | InvocationTargetException e) {
+            result = invoker.invoke(params.positional());
+        } catch (Throwable e) {
             throw Throwables.propagate(e);
         }
+
+        // Asynchronous methods always produce a result, the future, so we can wait for completion
+        if (async || expectsResponse()) {
+            return Optional.of(new Result<>(result));
+        }
+
+        return Optional.empty();
     }
 }
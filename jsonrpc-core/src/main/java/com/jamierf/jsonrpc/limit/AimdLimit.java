@@ -0,0 +1,57 @@
+package com.jamierf.jsonrpc.limit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.time.Duration;
+
+/**
+ * Additive increase, multiplicative decrease. The limit grows by one for each request completing within the latency
+ * threshold while the limit is being used, and is cut back by the backoff ratio for each one which doesn't.
+ */
+public class AimdLimit implements ConcurrencyLimit {
+
+    private static final int DEFAULT_MIN_LIMIT = 1;
+    private static final int DEFAULT_MAX_LIMIT = 1000;
+    private static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThreshold;
+    private final double backoffRatio;
+
+    private volatile int limit;
+
+    public AimdLimit(final int initialLimit, final Duration latencyThreshold) {
+        this(initialLimit, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, latencyThreshold, DEFAULT_BACKOFF_RATIO);
+    }
+
+    public AimdLimit(final int initialLimit, final int minLimit, final int maxLimit, final Duration latencyThreshold,
+                     final double backoffRatio) {
+        checkArgument(minLimit > 0, "Min limit must be positive");
+        checkArgument(maxLimit >= minLimit, "Max limit must not be less than the min limit");
+        checkArgument(initialLimit >= minLimit && initialLimit <= maxLimit, "Initial limit must be between the min and max limits");
+        checkArgument(!latencyThreshold.isNegative() && !latencyThreshold.isZero(), "Latency threshold must be positive");
+        checkArgument(backoffRatio > 0 && backoffRatio < 1, "Backoff ratio must be between 0 and 1");
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThreshold = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(final long latencyNanos, final int inFlight) {
+        if (latencyNanos > latencyThreshold) {
+            limit = Math.max(minLimit, (int) (limit * backoffRatio));
+        } else if (inFlight * 2 >= limit) {
+            // Only grow while the limit is actually being used, otherwise it would grow without bound when idle
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+}
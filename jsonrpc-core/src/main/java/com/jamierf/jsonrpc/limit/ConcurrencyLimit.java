@@ -0,0 +1,15 @@
+package com.jamierf.jsonrpc.limit;
+
+/**
+ * An algorithm deciding how many requests may be handled at once, adjusted from the latency of those which have
+ * completed. Implementations must be thread safe.
+ */
+public interface ConcurrencyLimit {
+    int getLimit();
+
+    /**
+     * Called as each admitted request completes, with the time from it being admitted to completing and the number
+     * of requests that were in flight when it was admitted.
+     */
+    void onSample(final long latencyNanos, final int inFlight);
+}
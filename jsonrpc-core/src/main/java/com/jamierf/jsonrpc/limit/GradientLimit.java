@@ -0,0 +1,82 @@
+package com.jamierf.jsonrpc.limit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Adjusts the limit by the ratio of long term to recent average latency. While recent latency matches the long term
+ * average the limit grows by a small queue allowance, and as recent latency rises above it the limit shrinks in
+ * proportion, so load is shed as soon as requests start queueing rather than once they time out.
+ */
+public class GradientLimit implements ConcurrencyLimit {
+
+    private static final int DEFAULT_MIN_LIMIT = 1;
+    private static final int DEFAULT_MAX_LIMIT = 1000;
+    private static final double DEFAULT_TOLERANCE = 1.5;
+    private static final double SHORT_WEIGHT = 0.1;
+    private static final double LONG_WEIGHT = 0.01;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+
+    // Guarded by this
+    private double shortLatency;
+    private double longLatency;
+    private double estimatedLimit;
+
+    private volatile int limit;
+
+    public GradientLimit(final int initialLimit) {
+        this(initialLimit, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * @param tolerance how far recent latency may rise above the long term average before the limit is reduced
+     */
+    public GradientLimit(final int initialLimit, final int minLimit, final int maxLimit, final double tolerance) {
+        checkArgument(minLimit > 0, "Min limit must be positive");
+        checkArgument(maxLimit >= minLimit, "Max limit must not be less than the min limit");
+        checkArgument(initialLimit >= minLimit && initialLimit <= maxLimit, "Initial limit must be between the min and max limits");
+        checkArgument(tolerance >= 1, "Tolerance must be at least 1");
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(final long latencyNanos, final int inFlight) {
+        if (longLatency == 0) {
+            shortLatency = longLatency = latencyNanos;
+            return;
+        }
+
+        shortLatency += SHORT_WEIGHT * (latencyNanos - shortLatency);
+        longLatency += LONG_WEIGHT * (latencyNanos - longLatency);
+
+        // Don't grow the limit while it isn't being used, it tells us nothing about what could be handled
+        if (inFlight * 2 < estimatedLimit) {
+            return;
+        }
+
+        final double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longLatency / shortLatency));
+        final double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING));
+        limit = (int) estimatedLimit;
+
+        // Let the long term average drift back down after a sustained slowdown, so the limit can recover
+        if (longLatency > shortLatency * tolerance) {
+            longLatency = shortLatency;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.jamierf.jsonrpc.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Recorder;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+/**
+ * A reservoir recording every value into an HdrHistogram, without locking on update and with accurate high
+ * percentiles. Each snapshot covers the values recorded since the previous snapshot was taken, so should be taken
+ * by a single reporter at a regular interval.
+ */
+public class HdrReservoir implements Reservoir {
+
+    private static final long DEFAULT_HIGHEST_TRACKABLE_VALUE = TimeUnit.MINUTES.toNanos(1);
+    private static final int DEFAULT_SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder recorder;
+    private final long highestTrackableValue;
+
+    private volatile int lastSize;
+
+    /**
+     * Creates a reservoir for latencies in nanoseconds of up to a minute, to two significant digits.
+     */
+    public HdrReservoir() {
+        this(DEFAULT_HIGHEST_TRACKABLE_VALUE, DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    public HdrReservoir(final long highestTrackableValue, final int significantDigits) {
+        checkArgument(highestTrackableValue > 1, "Highest trackable value must be greater than 1");
+        checkArgument(significantDigits >= 0 && significantDigits <= 5, "Significant digits must be between 0 and 5");
+
+        this.recorder = new Recorder(highestTrackableValue, significantDigits);
+        this.highestTrackableValue = highestTrackableValue;
+    }
+
+    /**
+     * The number of values in the most recent snapshot.
+     */
+    @Override
+    public int size() {
+        return lastSize;
+    }
+
+    @Override
+    public void update(final long value) {
+        // Values out of range would be rejected, so clamp them rather than losing them
+        recorder.recordValue(Math.max(0, Math.min(value, highestTrackableValue)));
+    }
+
+    @Override
+    public synchronized Snapshot getSnapshot() {
+        final HdrSnapshot snapshot = new HdrSnapshot(recorder.getIntervalHistogram());
+        lastSize = snapshot.size();
+        return snapshot;
+    }
+}
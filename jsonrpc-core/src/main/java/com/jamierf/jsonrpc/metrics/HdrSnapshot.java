@@ -0,0 +1,77 @@
+package com.jamierf.jsonrpc.metrics;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+import com.codahale.metrics.Snapshot;
+
+/**
+ * A snapshot backed by an HdrHistogram, which is owned by the snapshot once created.
+ */
+class HdrSnapshot extends Snapshot {
+
+    private final Histogram histogram;
+
+    HdrSnapshot(final Histogram histogram) {
+        this.histogram = histogram;
+    }
+
+    @Override
+    public double getValue(final double quantile) {
+        return histogram.getValueAtPercentile(quantile * 100);
+    }
+
+    @Override
+    public long[] getValues() {
+        final long[] values = new long[size()];
+
+        int i = 0;
+        for (final HistogramIterationValue value : histogram.recordedValues()) {
+            final long equivalent = histogram.highestEquivalentValue(value.getValueIteratedTo());
+            for (long j = 0; j < value.getCountAtValueIteratedTo() && i < values.length; j++) {
+                values[i++] = equivalent;
+            }
+        }
+
+        return values;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(histogram.getTotalCount(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long getMax() {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getMaxValue();
+    }
+
+    @Override
+    public double getMean() {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getMean();
+    }
+
+    @Override
+    public long getMin() {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getMinValue();
+    }
+
+    @Override
+    public double getStdDev() {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getStdDeviation();
+    }
+
+    @Override
+    public void dump(final OutputStream output) {
+        try (final PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            for (final long value : getValues()) {
+                out.printf("%d%n", value);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.jamierf.jsonrpc.metrics;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Maps;
+
+/**
+ * Latency of each stage of handling a message, and of handling requests to each method, recorded by timers backed
+ * by an {@link HdrReservoir}. The timers are registered with the metric registry, and can also be read directly.
+ */
+public class LatencyMetrics {
+
+    /**
+     * Returns the timer registered under the given name, registering one backed by an {@link HdrReservoir} if
+     * there isn't one already.
+     */
+    public static Timer timer(final MetricRegistry metrics, final String name) {
+        final Metric existing = metrics.getMetrics().get(name);
+        if (existing instanceof Timer) {
+            return (Timer) existing;
+        }
+
+        try {
+            return metrics.register(name, new Timer(new HdrReservoir()));
+        } catch (IllegalArgumentException e) {
+            // Registered by someone else in the meantime
+            return metrics.timer(name);
+        }
+    }
+
+    private final MetricRegistry metrics;
+    private final Map<Stage, Timer> stages;
+    private final ConcurrentMap<String, Timer> methods;
+
+    public LatencyMetrics(final MetricRegistry metrics, final Class<?> owner) {
+        this.metrics = metrics;
+
+        stages = new EnumMap<>(Stage.class);
+        for (final Stage stage : Stage.values()) {
+            stages.put(stage, timer(metrics, name(owner, "stage", stage.getName())));
+        }
+
+        methods = Maps.newConcurrentMap();
+    }
+
+    public Timer getStage(final Stage stage) {
+        return stages.get(stage);
+    }
+
+    /**
+     * Returns the timer for handling requests to the given method, creating it if need be.
+     */
+    public Timer getMethod(final String method) {
+        return methods.computeIfAbsent(method, m -> timer(metrics, name("api", m)));
+    }
+
+    public Map<String, Timer> getMethods() {
+        return Collections.unmodifiableMap(methods);
+    }
+}
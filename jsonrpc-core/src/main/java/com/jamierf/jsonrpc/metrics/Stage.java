@@ -0,0 +1,37 @@
+package com.jamierf.jsonrpc.metrics;
+
+/**
+ * The stages a message passes through, each of which is timed separately.
+ */
+public enum Stage {
+    /**
+     * Decoding incoming messages.
+     */
+    DECODE("decode"),
+    /**
+     * Waiting for an executor thread once decoded.
+     */
+    QUEUE_WAIT("queue-wait"),
+    /**
+     * Handling a request, until its result is ready including any asynchronous result.
+     */
+    HANDLER("handler"),
+    /**
+     * Encoding outgoing messages.
+     */
+    SERIALIZE("serialize"),
+    /**
+     * Handing encoded messages to the transport.
+     */
+    WRITE("write");
+
+    private final String name;
+
+    Stage(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,323 @@
+package com.jamierf.jsonrpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * A timer for large numbers of short lived timeouts which are usually cancelled before they expire. Timeouts are
+ * hashed into a wheel of buckets by deadline and a single worker thread expires one bucket per tick, so scheduling
+ * and cancelling are both constant time and never contend on a lock. Timeouts fire within one tick of their deadline.
+ */
+public class HashedWheelTimer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HashedWheelTimer.class);
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    public interface Timeout {
+        /**
+         * Cancels this timeout, returning false if it has already expired or been cancelled.
+         */
+        boolean cancel();
+
+        Runnable getTask();
+
+        boolean isExpired();
+
+        boolean isCancelled();
+    }
+
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Task> pendingTimeouts;
+    private final Queue<Task> cancelledTimeouts;
+    private final long startTime;
+    private final Thread worker;
+
+    private volatile boolean running;
+    private long tick; // Only accessed by the worker thread
+    private Set<Timeout> unprocessedTimeouts; // Written by the worker thread before it exits
+
+    public HashedWheelTimer(final ThreadFactory threadFactory, final Duration tickDuration, final int ticksPerWheel) {
+        checkArgument(!tickDuration.isNegative() && !tickDuration.isZero(), "Tick duration must be positive");
+        checkArgument(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30, "Ticks per wheel must be between 1 and 2^30");
+
+        this.tickDuration = tickDuration.toNanos();
+
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+
+        wheel = new Bucket[size];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+
+        mask = wheel.length - 1;
+        pendingTimeouts = new ConcurrentLinkedQueue<>();
+        cancelledTimeouts = new ConcurrentLinkedQueue<>();
+
+        running = true;
+        startTime = System.nanoTime();
+        worker = threadFactory.newThread(this::run);
+        worker.start();
+    }
+
+    /**
+     * Schedules a task to run after the given delay, throwing an {@link IllegalStateException} if the timer has been
+     * stopped.
+     */
+    public Timeout newTimeout(final Runnable task, final Duration delay) {
+        checkState(running, "Timer has been stopped");
+
+        final Task timeout = new Task(task, System.nanoTime() + delay.toNanos() - startTime);
+        pendingTimeouts.add(timeout);
+
+        // If the timer stopped meanwhile either the worker has drained this timeout, and will return it from stop,
+        // or it never will and we must take it back
+        if (!running && pendingTimeouts.remove(timeout)) {
+            throw new IllegalStateException("Timer has been stopped");
+        }
+
+        return timeout;
+    }
+
+    /**
+     * Stops the worker thread, returning the timeouts which were neither cancelled nor expired and so will now never
+     * fire. The timer can't be stopped from one of its own tasks.
+     */
+    public Set<Timeout> stop() {
+        checkState(Thread.currentThread() != worker, "Timer can't be stopped from one of its own tasks");
+
+        running = false;
+        LockSupport.unpark(worker);
+        Uninterruptibles.joinUninterruptibly(worker);
+
+        // Only the first call gets the unprocessed timeouts
+        synchronized (this) {
+            final Set<Timeout> unprocessed = unprocessedTimeouts;
+            unprocessedTimeouts = Collections.emptySet();
+            return Collections.unmodifiableSet(unprocessed);
+        }
+    }
+
+    private void run() {
+        while (awaitNextTick()) {
+            processCancelledTimeouts();
+            transferTimeoutsToBuckets();
+
+            wheel[(int) (tick & mask)].expireTimeouts();
+            tick++;
+        }
+
+        final Set<Timeout> unprocessed = Sets.newHashSet();
+        for (final Bucket bucket : wheel) {
+            bucket.drainTimeouts(unprocessed);
+        }
+
+        Task timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (!timeout.isCancelled()) {
+                unprocessed.add(timeout);
+            }
+        }
+
+        synchronized (this) {
+            unprocessedTimeouts = unprocessed;
+        }
+    }
+
+    private boolean awaitNextTick() {
+        final long deadline = tickDuration * (tick + 1);
+
+        while (running) {
+            final long currentTime = System.nanoTime() - startTime;
+            if (currentTime >= deadline) {
+                return true;
+            }
+
+            LockSupport.parkNanos(this, deadline - currentTime);
+        }
+
+        return false;
+    }
+
+    private void processCancelledTimeouts() {
+        Task timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            // Timeouts cancelled before they reach a bucket are skipped when transferred
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferTimeoutsToBuckets() {
+        // Limit the number transferred so a flood of new timeouts can't stall the worker
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            final Task timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                break;
+            }
+
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            final long calculated = timeout.deadline / tickDuration;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+
+            // Timeouts which should already have expired go into the current bucket
+            wheel[(int) (Math.max(calculated, tick) & mask)].add(timeout);
+        }
+    }
+
+    private final class Task implements Timeout {
+        private static final int STATE_INIT = 0;
+        private static final int STATE_CANCELLED = 1;
+        private static final int STATE_EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+
+        // Not private so the field updater can access it
+        volatile int state = STATE_INIT;
+
+        // Only accessed by the worker thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Task next;
+        private Task prev;
+
+        private Task(final Runnable task, final long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, STATE_INIT, STATE_CANCELLED)) {
+                return false;
+            }
+
+            // Let the worker remove us from the wheel, so buckets are never touched concurrently
+            cancelledTimeouts.add(this);
+            return true;
+        }
+
+        @Override
+        public Runnable getTask() {
+            return task;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state == STATE_EXPIRED;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == STATE_CANCELLED;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, STATE_INIT, STATE_EXPIRED)) {
+                return;
+            }
+
+            try {
+                task.run();
+            } catch (Throwable e) {
+                LOGGER.warn("Exception thrown by timeout task", e);
+            }
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Task> STATE = AtomicIntegerFieldUpdater.newUpdater(Task.class, "state");
+
+    private static final class Bucket {
+        private Task head;
+        private Task tail;
+
+        private void add(final Task timeout) {
+            timeout.bucket = this;
+
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void remove(final Task timeout) {
+            final Task next = timeout.next;
+
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+
+            if (timeout == head) {
+                head = next;
+            }
+
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        private void drainTimeouts(final Set<Timeout> unprocessed) {
+            while (head != null) {
+                final Task timeout = head;
+                remove(timeout);
+
+                if (!timeout.isCancelled()) {
+                    unprocessed.add(timeout);
+                }
+            }
+        }
+
+        private void expireTimeouts() {
+            Task timeout = head;
+            while (timeout != null) {
+                final Task next = timeout.next;
+
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+
+                timeout = next;
+            }
+        }
+    }
+}
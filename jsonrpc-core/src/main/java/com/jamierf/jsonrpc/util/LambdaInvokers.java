@@ -0,0 +1,165 @@
+package com.jamierf.jsonrpc.util;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Optional;
+
+/**
+ * Builds invokers from classes spun by {@link LambdaMetafactory}, which call the target method directly rather than
+ * through a method handle the JIT can't see through. Each supported arity has an interface whose default method
+ * spreads the parameter array in to the spun implementation.
+ */
+final class LambdaInvokers {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final Class<?>[] INVOKERS = { Invoker0.class, Invoker1.class, Invoker2.class, Invoker3.class };
+    private static final Class<?>[] VOID_INVOKERS = {
+            VoidInvoker0.class, VoidInvoker1.class, VoidInvoker2.class, VoidInvoker3.class };
+
+    interface Invoker0 extends MethodInvoker {
+        Object call() throws Throwable;
+
+        @Override
+        default Object invoke(final Object[] params) throws Throwable {
+            return call();
+        }
+    }
+
+    interface Invoker1 extends MethodInvoker {
+        Object call(Object p0) throws Throwable;
+
+        @Override
+        default Object invoke(final Object[] params) throws Throwable {
+            return call(params[0]);
+        }
+    }
+
+    interface Invoker2 extends MethodInvoker {
+        Object call(Object p0, Object p1) throws Throwable;
+
+        @Override
+        default Object invoke(final Object[] params) throws Throwable {
+            return call(params[0], params[1]);
+        }
+    }
+
+    interface Invoker3 extends MethodInvoker {
+        Object call(Object p0, Object p1, Object p2) throws Throwable;
+
+        @Override
+        default Object invoke(final Object[] params) throws Throwable {
+            return call(params[0], params[1], params[2]);
+        }
+    }
+
+    interface VoidInvoker0 extends MethodInvoker {
+        void call() throws Throwable;
+
+        @Override
+        default Object invoke(final Object[] params) throws Throwable {
+            call();
+            return null;
+        }
+    }
+
+    interface VoidInvoker1 extends MethodInvoker {
+        void call(Object p0) throws Throwable;
+
+        @Override
+        default Object invoke(final Object[] params) throws Throwable {
+            call(params[0]);
+            return null;
+        }
+    }
+
+    interface VoidInvoker2 extends MethodInvoker {
+        void call(Object p0, Object p1) throws Throwable;
+
+        @Override
+        default Object invoke(final Object[] params) throws Throwable {
+            call(params[0], params[1]);
+            return null;
+        }
+    }
+
+    interface VoidInvoker3 extends MethodInvoker {
+        void call(Object p0, Object p1, Object p2) throws Throwable;
+
+        @Override
+        default Object invoke(final Object[] params) throws Throwable {
+            call(params[0], params[1], params[2]);
+            return null;
+        }
+    }
+
+    /**
+     * Creates an invoker for the given instance method, or nothing if it takes too many parameters or the spun class
+     * couldn't link against its types.
+     */
+    static Optional<MethodInvoker> create(final Method method, final MethodHandle handle, final Object instance) {
+        final int arity = method.getParameterCount();
+        if (Modifier.isStatic(method.getModifiers()) || arity >= INVOKERS.length || !isLinkable(method)) {
+            return Optional.empty();
+        }
+
+        final boolean returnsValue = method.getReturnType() != void.class;
+        final Class<?> invokerType = returnsValue ? INVOKERS[arity] : VOID_INVOKERS[arity];
+        final MethodType erasedType = returnsValue
+                ? MethodType.genericMethodType(arity)
+                : MethodType.genericMethodType(arity).changeReturnType(void.class);
+        // Unboxes arguments and boxes the result, as the parameter array and callers deal only in objects
+        final MethodType instantiatedType = returnsValue
+                ? MethodType.methodType(method.getReturnType(), method.getParameterTypes()).wrap()
+                : MethodType.methodType(void.class, method.getParameterTypes()).wrap().changeReturnType(void.class);
+
+        try {
+            final MethodHandle factory = LambdaMetafactory.metafactory(LOOKUP, "call",
+                    MethodType.methodType(invokerType, method.getDeclaringClass()),
+                    erasedType, handle, instantiatedType).getTarget();
+            return Optional.of((MethodInvoker) factory.invoke(instance));
+        } catch (Throwable e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The spun class is defined alongside this one, so it can only refer to public types its class loader can see.
+     */
+    private static boolean isLinkable(final Method method) {
+        if (!isLinkable(method.getDeclaringClass()) || !isLinkable(method.getReturnType())) {
+            return false;
+        }
+
+        for (final Class<?> type : method.getParameterTypes()) {
+            if (!isLinkable(type)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isLinkable(final Class<?> type) {
+        if (type.isPrimitive()) {
+            return true;
+        }
+
+        if (!Modifier.isPublic(type.getModifiers())) {
+            return false;
+        }
+
+        try {
+            return Class.forName(type.getName(), false, LambdaInvokers.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private LambdaInvokers() {
+    }
+}
@@ -0,0 +1,54 @@
+package com.jamierf.jsonrpc.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Optional;
+
+/**
+ * Invokes a method on a fixed target instance with positional arguments. Exceptions thrown by the
+ * target method are rethrown as-is rather than wrapped.
+ */
+@FunctionalInterface
+public interface MethodInvoker {
+
+    /**
+     * Creates an invoker which calls the method from a class spun for it by the lambda metafactory, falling back to
+     * a method handle bound to the given instance for methods it can't handle, and to reflection if the method
+     * cannot be looked up.
+     */
+    static MethodInvoker compile(final Method method, final Object instance) {
+        final MethodHandle handle;
+        try {
+            handle = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            return reflective(method, instance);
+        }
+
+        final Optional<MethodInvoker> generated = LambdaInvokers.create(method, handle, instance);
+        if (generated.isPresent()) {
+            return generated.get();
+        }
+
+        final MethodHandle bound = Modifier.isStatic(method.getModifiers()) ? handle : handle.bindTo(instance);
+        final MethodHandle target = bound.asSpreader(Object[].class, method.getParameterCount())
+                .asType(MethodType.methodType(Object.class, Object[].class));
+
+        return params -> target.invokeExact(params);
+    }
+
+    static MethodInvoker reflective(final Method method, final Object instance) {
+        return params -> {
+            try {
+                return method.invoke(instance, params);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    Object invoke(final Object[] params) throws Throwable;
+}
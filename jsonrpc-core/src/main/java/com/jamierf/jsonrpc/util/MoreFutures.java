@@ -0,0 +1,85 @@
+package com.jamierf.jsonrpc.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+public final class MoreFutures {
+
+    /**
+     * Adapts the value returned by a method to a {@link ListenableFuture}. Values which are already futures are
+     * adapted to complete along with them, anything else is treated as an immediately available result.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ListenableFuture<T> listenable(final Object value) {
+        if (value instanceof ListenableFuture<?>) {
+            return (ListenableFuture<T>) value;
+        }
+
+        if (value instanceof CompletionStage<?>) {
+            return listenable((CompletionStage<T>) value);
+        }
+
+        return Futures.immediateFuture((T) value);
+    }
+
+    public static <T> ListenableFuture<T> listenable(final CompletionStage<T> stage) {
+        final SettableFuture<T> future = SettableFuture.create();
+        stage.whenComplete((result, e) -> {
+            if (e != null) {
+                future.setException(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            } else {
+                future.set(result);
+            }
+        });
+
+        return future;
+    }
+
+    public static <T> CompletableFuture<T> completable(final ListenableFuture<T> future) {
+        final CompletableFuture<T> completable = new CompletableFuture<T>() {
+            @Override
+            public boolean cancel(final boolean mayInterruptIfRunning) {
+                future.cancel(mayInterruptIfRunning);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+
+        Futures.addCallback(future, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(final T result) {
+                completable.complete(result);
+            }
+
+            @Override
+            public void onFailure(final Throwable e) {
+                completable.completeExceptionally(e);
+            }
+        });
+
+        return completable;
+    }
+
+    /**
+     * Adapts a future to the given future type, as declared by a method.
+     */
+    public static Object adapt(final ListenableFuture<?> future, final Class<?> type) {
+        if (type.isInstance(future)) {
+            return future;
+        }
+
+        if (type.isAssignableFrom(CompletableFuture.class)) {
+            return completable(future);
+        }
+
+        throw new IllegalArgumentException("Unsupported future type: " + type);
+    }
+
+    private MoreFutures() {
+    }
+}
@@ -1,7 +1,12 @@
 package com.jamierf.jsonrpc.util;
 
+import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.concurrent.CompletionStage;
+
+import com.google.common.util.concurrent.ListenableFuture;
 
 public final class Reflections {
 
@@ -22,6 +27,30 @@ public final class Reflections {
         return Void.class.isAssignableFrom(type) || void.class.isAssignableFrom(type);
     }
 
+    public static boolean isFuture(final Class<?> type) {
+        return CompletionStage.class.isAssignableFrom(type) || ListenableFuture.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Returns the type the result of a method resolves to, unwrapping the type argument of futures. Anything else,
+     * including type variables and generic arrays, is returned as declared.
+     */
+    public static Type resultType(final Method method) {
+        final Type type = method.getGenericReturnType();
+        if (!isFuture(method.getReturnType())) {
+            return type;
+        }
+
+        if (type instanceof ParameterizedType) {
+            final Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (arguments.length == 1) {
+                return arguments[0] instanceof WildcardType ? ((WildcardType) arguments[0]).getUpperBounds()[0] : arguments[0];
+            }
+        }
+
+        return Object.class;
+    }
+
     private Reflections() {
     }
 }
@@ -1,8 +1,12 @@
 package com.jamierf.jsonrpc;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.hamcrest.core.StringEndsWith.endsWith;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -10,6 +14,10 @@ import static uk.co.datumedge.hamcrest.json.SameJSONAs.sameJSONAs;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -17,10 +25,18 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.io.ByteSource;
 import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.jamierf.jsonrpc.api.Parameters;
 import com.jamierf.jsonrpc.codec.CodecFactory;
+import com.jamierf.jsonrpc.limit.AimdLimit;
+import com.jamierf.jsonrpc.metrics.LatencyMetrics;
+import com.jamierf.jsonrpc.metrics.Stage;
 import com.jamierf.jsonrpc.transport.Transport;
 import com.jamierf.jsonrpc.util.ByteArraySink;
 import com.jamierf.jsonrpc.util.SimpleLoggingRule;
@@ -33,6 +49,14 @@ public abstract class JsonRpcServerTest {
     public interface Interface {
         String ping();
         void testNoResponse();
+        CompletableFuture<String> asyncPing();
+        ListenableFuture<String> listenablePing();
+        String failingPing();
+    }
+
+    public interface GenericInterface<T> {
+        T ping();
+        T[] pings();
     }
 
     @Rule
@@ -41,7 +65,11 @@ public abstract class JsonRpcServerTest {
     private final CodecFactory codecFactory;
 
     private ByteArraySink response;
+    private Transport transport;
+    private Interface implementation;
     private JsonRpcServer server;
+    private CompletableFuture<String> asyncPing;
+    private SettableFuture<String> listenablePing;
 
     public JsonRpcServerTest(final CodecFactory codecFactory) {
         this.codecFactory = codecFactory;
@@ -50,15 +78,17 @@ public abstract class JsonRpcServerTest {
     @Before
     public void setUp() throws IOException {
         response = new ByteArraySink();
+        asyncPing = new CompletableFuture<>();
+        listenablePing = SettableFuture.create();
 
-        final Transport transport = mock(Transport.class);
+        transport = mock(Transport.class);
         when(transport.getMessageOutput()).thenReturn(response);
 
         server = JsonRpc.server(transport, codecFactory)
                 .executor(MoreExecutors.newDirectExecutorService())
                 .build();
 
-        server.register(new Interface() {
+        implementation = new Interface() {
             @Override
             public String ping() {
                 return "pong";
@@ -68,7 +98,25 @@ public abstract class JsonRpcServerTest {
             public void testNoResponse() {
                 /* no response */
             }
-        }, Interface.class);
+
+            @Override
+            public CompletableFuture<String> asyncPing() {
+                return asyncPing;
+            }
+
+            @Override
+            public ListenableFuture<String> listenablePing() {
+                return listenablePing;
+            }
+
+            @Override
+            public String failingPing() {
+                assertThat(RequestContext.get().isPresent(), is(true));
+                throw new IllegalStateException("test error");
+            }
+        };
+
+        server.register(implementation, Interface.class);
     }
 
     @Test
@@ -83,6 +131,38 @@ public abstract class JsonRpcServerTest {
         assertThat(readResponse(), sameJSONAs(stringResource("single_response.json")));
     }
 
+    @Test
+    public void testSingleRequestWithCompletableFutureResponse() throws IOException {
+        server.onMessage(byteResource("single_async_request.json"), response);
+        assertThat(readResponse(), nullValue());
+
+        asyncPing.complete("pong");
+        assertThat(readResponse(), sameJSONAs(stringResource("single_response.json")));
+    }
+
+    @Test
+    public void testSingleRequestWithListenableFutureResponse() throws IOException {
+        server.onMessage(byteResource("single_listenable_request.json"), response);
+        assertThat(readResponse(), nullValue());
+
+        listenablePing.set("pong");
+        assertThat(readResponse(), sameJSONAs(stringResource("single_response.json")));
+    }
+
+    @Test
+    public void testSingleRequestWithFailedFutureResponse() throws IOException {
+        server.onMessage(byteResource("single_async_request.json"), response);
+        asyncPing.completeExceptionally(new IllegalStateException("test error"));
+        assertThat(readResponse(), sameJSONAs(stringResource("single_error_response.json")));
+    }
+
+    @Test
+    public void testRequestContextClearedAfterFailure() throws IOException {
+        server.onMessage(byteResource("single_failing_request.json"), response);
+        assertThat(readResponse(), sameJSONAs(stringResource("single_error_response.json")));
+        assertThat(RequestContext.get().isPresent(), is(false));
+    }
+
     @Test
     public void testBatchedRequestWithNoResponse() throws IOException {
         server.onMessage(byteResource("batched_request_no_response.json"), response);
@@ -101,6 +181,172 @@ public abstract class JsonRpcServerTest {
         assertThat(readResponse(), endsWith(System.lineSeparator()));
     }
 
+    @Test
+    public void testRequestsOverLimitAreRejected() throws IOException {
+        final JsonRpcServer limited = JsonRpc.server(transport, codecFactory)
+                .executor(MoreExecutors.newDirectExecutorService())
+                .maxInFlightRequests(1)
+                .build();
+        limited.register(implementation, Interface.class);
+
+        limited.onMessage(byteResource("single_async_request.json"), new ByteArraySink());
+        limited.onMessage(byteResource("single_request.json"), response);
+        assertThat(readResponse(), sameJSONAs(stringResource("single_overloaded_response.json")));
+
+        // Once the pending request completes there's room for more
+        asyncPing.complete("pong");
+        response = new ByteArraySink();
+        limited.onMessage(byteResource("single_request.json"), response);
+        assertThat(readResponse(), sameJSONAs(stringResource("single_response.json")));
+    }
+
+    @Test
+    public void testRequestsOverConnectionLimitAreRejected() throws IOException {
+        final JsonRpcServer limited = JsonRpc.server(transport, codecFactory)
+                .executor(MoreExecutors.newDirectExecutorService())
+                .maxInFlightRequestsPerConnection(1)
+                .build();
+        limited.register(implementation, Interface.class);
+
+        final ByteArraySink busy = new ByteArraySink();
+        limited.onMessage(byteResource("single_async_request.json"), busy);
+        limited.onMessage(byteResource("single_request.json"), busy);
+        assertThat(new String(busy.toByteArray(), StandardCharsets.UTF_8), sameJSONAs(stringResource("single_overloaded_response.json")));
+
+        // Other connections are unaffected
+        limited.onMessage(byteResource("single_request.json"), response);
+        assertThat(readResponse(), sameJSONAs(stringResource("single_response.json")));
+    }
+
+    @Test
+    public void testRequestsOverConcurrencyLimitAreRejected() throws IOException {
+        // A limit which can't adapt away from 1
+        final JsonRpcServer limited = JsonRpc.server(transport, codecFactory)
+                .executor(MoreExecutors.newDirectExecutorService())
+                .metrics(new MetricRegistry())
+                .concurrencyLimit(() -> new AimdLimit(1, 1, 1, Duration.ofSeconds(1), 0.5))
+                .build();
+        limited.register(implementation, Interface.class);
+        limited.register("other", implementation, Interface.class);
+
+        limited.onMessage(byteResource("single_async_request.json"), new ByteArraySink());
+        limited.onMessage(byteResource("single_request.json"), response);
+        assertThat(readResponse(), sameJSONAs(stringResource("single_overloaded_response.json")));
+
+        // Each namespace has its own limit
+        response = new ByteArraySink();
+        limited.onMessage(ByteSource.wrap("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"other.ping\"}".getBytes(StandardCharsets.UTF_8)), response);
+        assertThat(readResponse(), sameJSONAs(stringResource("single_response.json")));
+    }
+
+    @Test
+    public void testRegisterWithGenericResultTypes() throws IOException {
+        server.register("generic", new GenericInterface<String>() {
+            @Override
+            public String ping() {
+                return "pong";
+            }
+
+            @Override
+            public String[] pings() {
+                return new String[]{ "pong" };
+            }
+        }, GenericInterface.class);
+
+        server.onMessage(ByteSource.wrap("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"generic.ping\"}".getBytes(StandardCharsets.UTF_8)), response);
+        assertThat(readResponse(), sameJSONAs(stringResource("single_response.json")));
+
+        response = new ByteArraySink();
+        server.onMessage(ByteSource.wrap("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"generic.pings\"}".getBytes(StandardCharsets.UTF_8)), response);
+        assertThat(readResponse(), sameJSONAs("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":[\"pong\"]}"));
+    }
+
+    @Test
+    public void testConcurrencyLimitMetricsAreNamedPerServer() {
+        final MetricRegistry metrics = new MetricRegistry();
+        final JsonRpcServer first = limitedServer(metrics, "first");
+        final JsonRpcServer second = limitedServer(metrics, "second");
+
+        // Methods outside a namespace don't share a limit with a namespace called "default"
+        assertThat(metrics.getGauges().keySet(), is(ImmutableSet.of(
+                "first.concurrency-limit.limit",
+                "first.concurrency-limit.default.limit",
+                "second.concurrency-limit.limit",
+                "second.concurrency-limit.default.limit")));
+
+        // A server can't take over the metrics of another with the same name
+        try {
+            limitedServer(metrics, "first");
+            fail("Expected a server with a duplicate name to be rejected");
+        } catch (IllegalStateException e) {
+            assertThat(metrics.getGauges().size(), is(4));
+        }
+
+        first.close();
+        assertThat(metrics.getGauges().keySet(), is(ImmutableSet.of(
+                "second.concurrency-limit.limit",
+                "second.concurrency-limit.default.limit")));
+
+        // Once closed its name is free again
+        limitedServer(metrics, "first");
+        second.close();
+    }
+
+    private JsonRpcServer limitedServer(final MetricRegistry metrics, final String name) {
+        final JsonRpcServer limited = JsonRpc.server(transport, codecFactory)
+                .executor(MoreExecutors.newDirectExecutorService())
+                .metrics(metrics)
+                .name(name)
+                .concurrencyLimit(() -> new AimdLimit(1, 1, 1, Duration.ofSeconds(1), 0.5))
+                .build();
+        limited.register(implementation, Interface.class);
+        limited.register("default", implementation, Interface.class);
+        return limited;
+    }
+
+    @Test
+    public void testLatencyIsRecordedPerStageAndMethod() throws IOException {
+        final MetricRegistry metrics = new MetricRegistry();
+        final JsonRpcServer measured = JsonRpc.server(transport, codecFactory)
+                .executor(MoreExecutors.newDirectExecutorService())
+                .metrics(metrics)
+                .build();
+        measured.register(implementation, Interface.class);
+
+        measured.onMessage(byteResource("single_request.json"), response);
+        assertThat(readResponse(), sameJSONAs(stringResource("single_response.json")));
+
+        final LatencyMetrics latencies = measured.getLatencyMetrics();
+        for (final Stage stage : Stage.values()) {
+            assertThat(stage.getName(), latencies.getStage(stage).getCount(), is(1L));
+        }
+
+        assertThat(latencies.getMethod("ping").getCount(), is(1L));
+        assertThat(latencies.getMethod("ping").getSnapshot().size(), is(1));
+        assertThat(metrics.getTimers().get("api.ping"), sameInstance(latencies.getMethod("ping")));
+    }
+
+    @Test
+    public void testPendingCallsFailWhenClosed() throws Exception {
+        final ListenableFuture<String> result = server.call("ping", Parameters.none(), String.class,
+                Duration.ofMinutes(1), response);
+        assertThat(result.isDone(), is(false));
+
+        server.close();
+
+        try {
+            result.get(30, TimeUnit.SECONDS);
+            fail("Expected pending call to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+
+        // Calls made once closed fail rather than wait for a timeout which will never fire
+        final ListenableFuture<String> late = server.call("ping", Parameters.none(), String.class,
+                Duration.ofMinutes(1), response);
+        assertThat(late.isDone(), is(true));
+    }
+
     private String readResponse() {
         final byte[] bytes = response.toByteArray();
         return bytes.length == 0 ? null : new String(bytes, StandardCharsets.UTF_8);
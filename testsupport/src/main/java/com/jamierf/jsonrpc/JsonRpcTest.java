@@ -1,19 +1,34 @@
 package com.jamierf.jsonrpc;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Every.everyItem;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import static com.jamierf.jsonrpc.util.TypeReference.reference;
+
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.jamierf.jsonrpc.api.Parameters;
 import com.jamierf.jsonrpc.codec.CodecFactory;
 import com.jamierf.jsonrpc.transport.Transport;
 import com.jamierf.jsonrpc.util.SimpleLoggingRule;
@@ -27,6 +42,12 @@ public abstract class JsonRpcTest<T extends Transport> {
 		String ping();
 
 		void testNoResponse();
+
+		CompletableFuture<String> asyncPing();
+
+		ListenableFuture<String> listenablePing();
+
+		CompletableFuture<String> neverPing();
 	}
 
 	private final CodecFactory codecFactory;
@@ -43,10 +64,18 @@ public abstract class JsonRpcTest<T extends Transport> {
 	protected abstract T createServer();
 	protected abstract T createClient( final T server );
 
+	protected JsonRpcServerBuilder configureServer( final JsonRpcServerBuilder builder ) {
+		return builder;
+	}
+
+	protected JsonRpcClientBuilder configureClient( final JsonRpcClientBuilder builder ) {
+		return builder;
+	}
+
 	@Before
 	public void setUp() throws InterruptedException {
 		final T serverTransport = createServer();
-		server = JsonRpc.server( serverTransport, codecFactory )
+		server = configureServer( JsonRpc.server( serverTransport, codecFactory ) )
 				.executor( MoreExecutors.newDirectExecutorService() )
 				.build();
 
@@ -60,12 +89,27 @@ public abstract class JsonRpcTest<T extends Transport> {
 			public void testNoResponse() {
 				/* no response */
 			}
+
+			@Override
+			public CompletableFuture<String> asyncPing() {
+				return CompletableFuture.completedFuture( "pong" );
+			}
+
+			@Override
+			public ListenableFuture<String> listenablePing() {
+				return Futures.immediateFuture( "pong" );
+			}
+
+			@Override
+			public CompletableFuture<String> neverPing() {
+				return new CompletableFuture<>();
+			}
 		} );
 
 		server.register( serverApi, TestApi.class );
 
 		final T clientTransport = createClient( serverTransport );
-		client = JsonRpc.client( clientTransport, codecFactory )
+		client = configureClient( JsonRpc.client( clientTransport, codecFactory ) )
 				.requestTimeout( Duration.ofSeconds( 30 ) )
 				.executor( MoreExecutors.newDirectExecutorService() )
 				.build();
@@ -79,6 +123,51 @@ public abstract class JsonRpcTest<T extends Transport> {
 		verify( serverApi ).ping();
 	}
 
+	@Test
+	public void testAsyncPing() throws Exception {
+		assertThat( clientApi.asyncPing().get( 30, TimeUnit.SECONDS ), is( "pong" ) );
+		verify( serverApi ).asyncPing();
+	}
+
+	@Test
+	public void testListenablePing() throws Exception {
+		assertThat( clientApi.listenablePing().get( 30, TimeUnit.SECONDS ), is( "pong" ) );
+		verify( serverApi ).listenablePing();
+	}
+
+	@Test
+	public void testCallAsync() throws Exception {
+		final ListenableFuture<String> result = client.callAsync( "ping", Parameters.none(), reference( String.class ) );
+		assertThat( result.get( 30, TimeUnit.SECONDS ), is( "pong" ) );
+		verify( serverApi ).ping();
+	}
+
+	@Test
+	public void testConcurrentCallAsync() throws Exception {
+		final List<ListenableFuture<String>> results = Lists.newArrayList();
+		for ( int i = 0; i < 20; i++ ) {
+			results.add( client.callAsync( "ping", Parameters.none(), reference( String.class ) ) );
+		}
+
+		assertThat( Futures.allAsList( results ).get( 30, TimeUnit.SECONDS ), everyItem( is( "pong" ) ) );
+		verify( serverApi, times( results.size() ) ).ping();
+	}
+
+	@Test
+	public void testCallAsyncTimeout() throws Exception {
+		final ListenableFuture<String> result = client.callAsync( "neverPing", Parameters.none(),
+				reference( String.class ), Duration.ofMillis( 100 ) );
+
+		try {
+			result.get( 30, TimeUnit.SECONDS );
+			fail( "Expected request to time out" );
+		} catch ( ExecutionException e ) {
+			assertThat( e.getCause(), instanceOf( TimeoutException.class ) );
+		}
+
+		verify( serverApi ).neverPing();
+	}
+
 	@After
 	public void tearDown() {
 		verifyNoMoreInteractions( serverApi );
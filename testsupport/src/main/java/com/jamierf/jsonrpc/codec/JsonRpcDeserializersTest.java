@@ -79,6 +79,18 @@ public abstract class JsonRpcDeserializersTest {
         ));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResultBeforeIdResponse() throws IOException {
+        namedSerialization.mockPendingResponse("1", reference(TestEntity.class));
+
+        final JsonRpcResponse<TestEntity> result = (JsonRpcResponse<TestEntity>) namedSerialization.deserialize("result_before_id_response.json");
+
+        assertThat(result, withResult(
+                equalTo(new TestEntity("hello world", 7))
+        ));
+    }
+
     @Test
     public void testNoParamsRequest() throws IOException {
         namedSerialization.mockMethod("ping");
@@ -127,6 +139,28 @@ public abstract class JsonRpcDeserializersTest {
         ));
     }
 
+    @Test
+    public void testParamsBeforeMethodRequest() throws IOException {
+        namedSerialization.mockMethod("ping", Parameters.of(
+                "name", reference(String.class),
+                "age", reference(int.class),
+                "dob", reference(Date.class),
+                "test", reference(TestEntity.class)
+        ));
+
+        final JsonRpcRequest request = (JsonRpcRequest) namedSerialization.deserialize("params_before_method_request.json");
+
+        assertThat(request, allOf(
+                forMethod("ping"),
+                withParams(Parameters.of(
+                        "name", "timmy",
+                        "age", 3,
+                        "dob", new Date(1427900421000L),
+                        "test", new TestEntity("hello world", 7)
+                ))
+        ));
+    }
+
     @Test
     public void testPositionalParamsRequest() throws IOException {
         namedSerialization.mockMethod("ping", Parameters.of(
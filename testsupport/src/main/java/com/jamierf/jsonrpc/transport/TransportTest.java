@@ -4,8 +4,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.iterableWithSize;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -49,13 +49,19 @@ public abstract class TransportTest<T extends Transport> {
 
 	private T server;
 	private Transport.MessageListener serverListener;
+	private List<String> serverMessages;
 	private T client;
 	private Transport.MessageListener clientListener;
 
 	@Before
-	public void setUp() {
+	public void setUp() throws IOException {
 		server = createServer();
 		serverListener = mock( Transport.MessageListener.class );
+		serverMessages = Lists.newCopyOnWriteArrayList();
+
+		// Sources are only valid until the listener returns, so read them as they arrive
+		doAnswer( invocation -> serverMessages.add( new String( ( (ByteSource) invocation.getArguments()[0] ).read() ) ) )
+				.when( serverListener ).onMessageInput( any( ByteSource.class ), any( ByteSink.class ) );
 		server.addListener( serverListener );
 
 		client = createClient( server );
@@ -64,7 +70,7 @@ public abstract class TransportTest<T extends Transport> {
 	}
 
 	@Test
-	public void testMultipleMessages() throws IOException {
+	public void testMultipleMessages() throws IOException, InterruptedException {
 		final List<String> expected = Lists.newLinkedList();
 		for ( int i = 0; i < 10; i++ ) {
 			final String message = generateJsonMessage();
@@ -72,16 +78,22 @@ public abstract class TransportTest<T extends Transport> {
 			client.getMessageOutput().write( message.getBytes() );
 		}
 
-		final ArgumentCaptor<ByteSource> captor = ArgumentCaptor.forClass( ByteSource.class );
 		verify( serverListener, withTimeout().times( expected.size() ) ).onMessageInput(
-				captor.capture(), any( ByteSink.class ) );
+				any( ByteSource.class ), any( ByteSink.class ) );
 
-		final List<ByteSource> actual = captor.getAllValues();
-		assertThat( actual, iterableWithSize( expected.size() ) );
+		// Invocations are recorded before the answer runs, so the last message may still be being read
+		awaitServerMessages( expected.size() );
+		assertThat( serverMessages, iterableWithSize( expected.size() ) );
 
 		for ( int i = 0; i < expected.size(); i++ ) {
-			final String message = new String( actual.get( i ).read() );
-			assertThat( message, is( expected.get( i ) ) );
+			assertThat( serverMessages.get( i ), is( expected.get( i ) ) );
+		}
+	}
+
+	private void awaitServerMessages( final int expected ) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while ( serverMessages.size() < expected && System.currentTimeMillis() < deadline ) {
+			Thread.sleep( 10 );
 		}
 	}
 
@@ -100,12 +112,15 @@ public abstract class TransportTest<T extends Transport> {
 	public void testMultipleClients() throws IOException {
 		final int numClients = 10;
 
+		final List<T> clients = Lists.newArrayList();
 		for ( int i = 0; i < numClients; i++ ) {
 			final T client = createClient( server );
+			clients.add( client );
 			client.getMessageOutput().write( generateJsonMessage().getBytes() );
 		}
 
-		verify( serverListener, times( numClients ) ).onMessageInput( any( ByteSource.class ), any( ByteSink.class ) );
+		verify( serverListener, withTimeout().times( numClients ) ).onMessageInput( any( ByteSource.class ), any( ByteSink.class ) );
+		clients.forEach( Transport::close );
 	}
 
 	@After
@@ -0,0 +1,178 @@
+package com.jamierf.jsonrpc.transport.socket;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Histogram;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteSink;
+import com.jamierf.jsonrpc.transport.Transport;
+import com.jamierf.jsonrpc.transport.TransportException;
+
+/**
+ * Writes messages to a channel. Each stream serializes into a buffer from the channel's allocator, which is written
+ * when the stream is closed without waiting for the write to complete. Writes made close together are flushed
+ * together, once the event loop has run any tasks already queued or once enough messages are waiting, so a burst of
+ * messages costs one syscall rather than one each. Requests written to the channel are tracked until completed, so
+ * they can be failed straight away if the channel is closed. Reading from the channel can be paused, so a receiver
+ * which falls behind pushes back on the sender rather than queueing messages without bound.
+ */
+public class ChannelByteSink extends ByteSink implements Transport.CallListener, Transport.FlowControl {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChannelByteSink.class);
+
+    private final Channel channel;
+    private final ChannelFutureListener defaultListener;
+    private final Set<Transport.PendingCall> calls;
+    private final int maxMessagesPerFlush;
+    private final Optional<Histogram> messagesPerFlush;
+    private final Runnable flushTask;
+
+    // Only accessed from the channel's event loop
+    private int unflushed;
+    private boolean flushScheduled;
+
+    /**
+     * Creates a sink which flushes after every message.
+     */
+    public ChannelByteSink(final Channel channel) {
+        this(channel, 1, Optional.empty());
+    }
+
+    public ChannelByteSink(final Channel channel, final int maxMessagesPerFlush, final Optional<Histogram> messagesPerFlush) {
+        checkArgument(maxMessagesPerFlush > 0, "Max messages per flush must be positive");
+
+        this.channel = checkNotNull(channel);
+        this.maxMessagesPerFlush = maxMessagesPerFlush;
+        this.messagesPerFlush = messagesPerFlush;
+
+        defaultListener = future -> {
+            if (!future.isSuccess()) {
+                LOGGER.warn("Failed to write to channel: {}", channel, future.cause());
+            }
+        };
+
+        calls = Sets.newConcurrentHashSet();
+        flushTask = () -> {
+            flushScheduled = false;
+            flush();
+        };
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void onCallStarted(final Transport.PendingCall call) {
+        calls.add(call);
+
+        // The channel may have closed before the call was tracked
+        if (!channel.isActive()) {
+            failCalls();
+        }
+    }
+
+    @Override
+    public void onCallCompleted(final Transport.PendingCall call, final long latencyNanos, final boolean success) {
+        calls.remove(call);
+    }
+
+    @Override
+    public void pauseReading() {
+        channel.config().setAutoRead(false);
+    }
+
+    @Override
+    public void resumeReading() {
+        channel.config().setAutoRead(true);
+    }
+
+    /**
+     * Fails every request written to this channel which is still awaiting a response.
+     */
+    public void failCalls() {
+        final TransportException cause = new TransportException("Connection closed: " + channel);
+        for (final Iterator<Transport.PendingCall> it = calls.iterator(); it.hasNext(); ) {
+            final Transport.PendingCall call = it.next();
+            it.remove();
+            call.fail(cause);
+        }
+    }
+
+    @Override
+    public OutputStream openStream() throws IOException {
+        return openStream(defaultListener);
+    }
+
+    /**
+     * Opens a stream which notifies the given listener once its content has been written to the channel, or failed.
+     */
+    public OutputStream openStream(final ChannelFutureListener listener) throws IOException {
+        if (!channel.isActive()) {
+            throw new TransportException("Not connected: " + channel);
+        }
+
+        return new ByteBufOutputStream(channel.alloc().ioBuffer()) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                checkState(!closed, "Stream already closed");
+                closed = true;
+
+                super.close();
+
+                final ByteBuf buffer = buffer();
+                if (channel.eventLoop().inEventLoop()) {
+                    writeCoalesced(buffer, listener);
+                    return;
+                }
+
+                // Counting and flushing writes happens on the event loop, so it sees writes in the order they're made
+                try {
+                    channel.eventLoop().execute(() -> writeCoalesced(buffer, listener));
+                } catch (RejectedExecutionException e) {
+                    buffer.release();
+                    throw new TransportException("Event loop has shut down: " + channel);
+                }
+            }
+        };
+    }
+
+    private void writeCoalesced(final ByteBuf buffer, final ChannelFutureListener listener) {
+        channel.write(buffer).addListener(listener);
+
+        if (++unflushed >= maxMessagesPerFlush) {
+            flush();
+        } else if (!flushScheduled) {
+            // Flush once the event loop has run everything queued so far, picking up any writes made meanwhile
+            flushScheduled = true;
+            channel.eventLoop().execute(flushTask);
+        }
+    }
+
+    private void flush() {
+        if (unflushed > 0) {
+            messagesPerFlush.ifPresent(h -> h.update(unflushed));
+            unflushed = 0;
+            channel.flush();
+        }
+    }
+}
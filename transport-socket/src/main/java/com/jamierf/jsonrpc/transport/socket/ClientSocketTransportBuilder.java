@@ -1,14 +1,36 @@
 package com.jamierf.jsonrpc.transport.socket;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import io.netty.channel.EventLoopGroup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 import com.google.common.net.HostAndPort;
+import com.jamierf.jsonrpc.util.Backoff;
 
 public class ClientSocketTransportBuilder {
+    private static final String DEFAULT_METRIC_REGISTRY_NAME = "jsonrpc";
 
     private final HostAndPort address;
 
     private int maxFrameSize = 1024 * 1024; // 1Mb
+    private Optional<Executor> decodeExecutor = Optional.empty();
+    private int decoderThreads = 0;
+    private Optional<MetricRegistry> metrics = Optional.empty();
+    private Optional<EventLoopGroup> eventLoopGroup = Optional.empty();
+    private int ioThreads = 0;
+    private boolean nativeTransport = false;
+    private int maxMessagesPerFlush = SocketTransport.DEFAULT_MAX_MESSAGES_PER_FLUSH;
+    private boolean reconnect = true;
+    private Duration initialReconnectBackoff = Duration.ofMillis(100);
+    private Duration maxReconnectBackoff = Duration.ofSeconds(10);
+    private Duration connectTimeout = Duration.ofSeconds(30);
 
     protected ClientSocketTransportBuilder(final HostAndPort address) {
         this.address = checkNotNull(address);
@@ -19,7 +41,128 @@ public class ClientSocketTransportBuilder {
         return this;
     }
 
+    /**
+     * Decode and dispatch incoming messages on the given executor, rather than on the I/O thread. Messages the
+     * executor rejects are decoded on the I/O thread, so a bounded executor pushes back on the sender once full.
+     */
+    public ClientSocketTransportBuilder decodeExecutor(final Executor executor) {
+        this.decodeExecutor = Optional.of(executor);
+        this.decoderThreads = 0;
+        return this;
+    }
+
+    /**
+     * Decode and dispatch incoming messages on a dedicated pool of threads owned by the transport, rather than on
+     * the I/O thread. The pool queues a bounded number of messages, beyond which they are decoded on the I/O thread.
+     */
+    public ClientSocketTransportBuilder decoderThreads(final int decoderThreads) {
+        checkArgument(decoderThreads > 0, "Number of decoder threads must be positive");
+        this.decoderThreads = decoderThreads;
+        this.decodeExecutor = Optional.empty();
+        return this;
+    }
+
+    public ClientSocketTransportBuilder metrics(final MetricRegistry metrics) {
+        this.metrics = Optional.of(metrics);
+        return this;
+    }
+
+    /**
+     * Run I/O on the given event loop group, which is shared with other transports and left running on close.
+     */
+    public ClientSocketTransportBuilder eventLoopGroup(final EventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = Optional.of(eventLoopGroup);
+        return this;
+    }
+
+    /**
+     * Number of I/O threads in the event loop group owned by the transport, 0 uses Netty's default.
+     */
+    public ClientSocketTransportBuilder ioThreads(final int ioThreads) {
+        checkArgument(ioThreads >= 0, "Number of I/O threads must not be negative");
+        this.ioThreads = ioThreads;
+        return this;
+    }
+
+    /**
+     * Use the native epoll transport when it is available, falling back to NIO otherwise.
+     */
+    public ClientSocketTransportBuilder nativeTransport(final boolean nativeTransport) {
+        this.nativeTransport = nativeTransport;
+        return this;
+    }
+
+    /**
+     * Flush after at most this many messages, rather than waiting for the event loop to get through its queued
+     * tasks. A value of 1 flushes after every message.
+     */
+    public ClientSocketTransportBuilder maxMessagesPerFlush(final int maxMessagesPerFlush) {
+        checkArgument(maxMessagesPerFlush > 0, "Max messages per flush must be positive");
+        this.maxMessagesPerFlush = maxMessagesPerFlush;
+        return this;
+    }
+
+    /**
+     * Reconnect whenever the connection closes, until the transport itself is closed. Enabled by default.
+     */
+    public ClientSocketTransportBuilder reconnect(final boolean reconnect) {
+        this.reconnect = reconnect;
+        return this;
+    }
+
+    /**
+     * Wait between reconnection attempts, starting at the initial backoff and doubling up to the max backoff.
+     */
+    public ClientSocketTransportBuilder reconnectBackoff(final Duration initialBackoff, final Duration maxBackoff) {
+        this.initialReconnectBackoff = checkNotNull(initialBackoff);
+        this.maxReconnectBackoff = checkNotNull(maxBackoff);
+        return this;
+    }
+
+    /**
+     * Give up on connecting, or reconnecting, after this long.
+     */
+    public ClientSocketTransportBuilder connectTimeout(final Duration connectTimeout) {
+        checkArgument(!connectTimeout.isNegative() && !connectTimeout.isZero(), "Connect timeout must be positive");
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    private Optional<Backoff> reconnectBackoff() {
+        return reconnect ? Optional.of(new Backoff(initialReconnectBackoff, maxReconnectBackoff)) : Optional.empty();
+    }
+
     public SocketTransport build() {
-        return new SocketTransport(address, maxFrameSize);
+        return new SocketTransport(
+                address,
+                maxFrameSize,
+                decodeExecutor,
+                decoderThreads,
+                metrics.orElseGet(() -> SharedMetricRegistries.getOrCreate(DEFAULT_METRIC_REGISTRY_NAME)),
+                EventLoops.create(eventLoopGroup, ioThreads, nativeTransport),
+                reconnectBackoff(),
+                maxMessagesPerFlush,
+                connectTimeout
+        );
+    }
+
+    /**
+     * Builds a transport which keeps the given number of connections open and spreads messages across them.
+     */
+    public PooledSocketTransport buildPool(final int connections, final PooledSocketTransport.Selection selection) {
+        checkArgument(connections > 0, "Number of connections must be positive");
+        return new PooledSocketTransport(
+                address,
+                connections,
+                checkNotNull(selection),
+                maxFrameSize,
+                decodeExecutor,
+                decoderThreads,
+                metrics.orElseGet(() -> SharedMetricRegistries.getOrCreate(DEFAULT_METRIC_REGISTRY_NAME)),
+                EventLoops.create(eventLoopGroup, ioThreads, nativeTransport),
+                reconnectBackoff(),
+                maxMessagesPerFlush,
+                connectTimeout
+        );
     }
 }
@@ -0,0 +1,86 @@
+package com.jamierf.jsonrpc.transport.socket;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * The event loop group used by a transport, along with the channel types matching it. Groups created here are
+ * owned by the transport and shut down with it, while shared groups are left for their owner to shut down.
+ */
+public class EventLoops {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLoops.class);
+
+    public static EventLoops create(final Optional<EventLoopGroup> sharedGroup, final int threads, final boolean nativeTransport) {
+        if (sharedGroup.isPresent()) {
+            return new EventLoops(sharedGroup.get(), sharedGroup.get() instanceof EpollEventLoopGroup, false);
+        }
+
+        final ThreadFactoryBuilder threadFactory = new ThreadFactoryBuilder().setNameFormat("jsonrpc-io-%d");
+
+        if (nativeTransport) {
+            if (Epoll.isAvailable()) {
+                try {
+                    return new EventLoops(new EpollEventLoopGroup(threads, threadFactory.build()), true, true);
+                } catch (IllegalStateException e) {
+                    // The native library can load but still fail to allocate on some JVMs
+                    LOGGER.warn("Failed to create native event loops, falling back to NIO", e);
+                }
+            } else {
+                LOGGER.warn("Native transport unavailable, falling back to NIO", Epoll.unavailabilityCause());
+            }
+        }
+
+        return new EventLoops(new NioEventLoopGroup(threads, threadFactory.build()), false, true);
+    }
+
+    private final EventLoopGroup group;
+    private final boolean nativeTransport;
+    private final boolean owned;
+
+    protected EventLoops(final EventLoopGroup group, final boolean nativeTransport, final boolean owned) {
+        this.group = checkNotNull(group);
+        this.nativeTransport = nativeTransport;
+        this.owned = owned;
+    }
+
+    public EventLoopGroup getGroup() {
+        return group;
+    }
+
+    public boolean isNative() {
+        return nativeTransport;
+    }
+
+    public Class<? extends Channel> getSocketChannelType() {
+        return nativeTransport ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    public Class<? extends ServerChannel> getServerSocketChannelType() {
+        return nativeTransport ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    public void close() {
+        if (owned) {
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        }
+    }
+}
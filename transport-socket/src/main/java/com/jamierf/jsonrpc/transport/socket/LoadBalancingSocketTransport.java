@@ -0,0 +1,269 @@
+package com.jamierf.jsonrpc.transport.socket;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSink;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jamierf.jsonrpc.transport.AbstractTransport;
+import com.jamierf.jsonrpc.transport.Transport;
+import com.jamierf.jsonrpc.transport.TransportException;
+
+/**
+ * A client transport which spreads requests across a fixed set of endpoints, choosing the better of two random
+ * healthy endpoints for each request. Endpoints whose connection drops, or which fail too many requests in a row,
+ * are ejected and periodically probed until they can be connected to again.
+ */
+public class LoadBalancingSocketTransport extends AbstractTransport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadBalancingSocketTransport.class);
+    private static final double EWMA_WEIGHT = 0.3;
+
+    public enum Strategy {
+        /**
+         * Prefer the endpoint with the fewest requests awaiting a response.
+         */
+        LEAST_IN_FLIGHT(Comparator.comparingInt(e -> e.inFlight.get())),
+        /**
+         * Prefer the endpoint with the lowest average latency, scaled by the number of requests awaiting a response
+         * so a fast endpoint isn't swamped.
+         */
+        EWMA_LATENCY(Comparator.comparingDouble(e -> e.latency * (e.inFlight.get() + 1)));
+
+        private final Comparator<Endpoint> comparator;
+
+        Strategy(final Comparator<Endpoint> comparator) {
+            this.comparator = comparator;
+        }
+    }
+
+    private final int maxFrameSize;
+    private final Strategy strategy;
+    private final int failuresBeforeEjection;
+    private final Duration connectTimeout;
+    private final MetricRegistry metrics;
+    private final EventLoops eventLoops;
+    private final Meter ejections;
+    private final Meter readmissions;
+    private final ScheduledExecutorService scheduler;
+    private final List<Endpoint> endpoints;
+
+    protected LoadBalancingSocketTransport(final Collection<HostAndPort> addresses, final int maxFrameSize,
+                                           final Strategy strategy, final int failuresBeforeEjection,
+                                           final Duration probeInterval, final Duration connectTimeout,
+                                           final MetricRegistry metrics, final EventLoops eventLoops) {
+        this.maxFrameSize = maxFrameSize;
+        this.strategy = strategy;
+        this.failuresBeforeEjection = failuresBeforeEjection;
+        this.connectTimeout = connectTimeout;
+        this.metrics = metrics;
+        this.eventLoops = eventLoops;
+        this.ejections = metrics.meter(name(LoadBalancingSocketTransport.class, "ejections"));
+        this.readmissions = metrics.meter(name(LoadBalancingSocketTransport.class, "readmissions"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("jsonrpc-balancer-%d").setDaemon(true).build());
+
+        final ImmutableList.Builder<Endpoint> builder = ImmutableList.builder();
+        for (final HostAndPort address : addresses) {
+            final Endpoint endpoint = new Endpoint(address);
+            endpoint.connect();
+            builder.add(endpoint);
+        }
+
+        endpoints = builder.build();
+
+        final long interval = probeInterval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::probe, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    public int getHealthyEndpointCount() {
+        return (int) endpoints.stream().filter(Endpoint::isHealthy).count();
+    }
+
+    @Override
+    public ByteSink getMessageOutput() throws IOException {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        final Optional<Endpoint> first = nextHealthy(random.nextInt(endpoints.size()));
+        if (!first.isPresent()) {
+            throw new TransportException("No healthy endpoints available");
+        }
+
+        // Power of two choices, which avoids herding on to a single endpoint with stale stats
+        final Optional<Endpoint> second = nextHealthy(random.nextInt(endpoints.size()));
+        final Endpoint selected = second.isPresent() && strategy.comparator.compare(second.get(), first.get()) < 0
+                ? second.get()
+                : first.get();
+
+        return selected.newCall();
+    }
+
+    private Optional<Endpoint> nextHealthy(final int start) {
+        for (int i = 0; i < endpoints.size(); i++) {
+            final Endpoint endpoint = endpoints.get((start + i) % endpoints.size());
+            if (endpoint.isHealthy()) {
+                return Optional.of(endpoint);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private void probe() {
+        for (final Endpoint endpoint : endpoints) {
+            final SocketTransport transport = endpoint.transport.get();
+            if (transport == null) {
+                if (endpoint.connect()) {
+                    readmissions.mark();
+                }
+            } else if (!transport.isOpen()) {
+                endpoint.eject(transport, "connection closed");
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+
+        for (final Endpoint endpoint : endpoints) {
+            final SocketTransport transport = endpoint.transport.getAndSet(null);
+            if (transport != null) {
+                transport.close();
+            }
+        }
+
+        eventLoops.close();
+    }
+
+    private final class Endpoint {
+        private final HostAndPort address;
+        private final AtomicReference<SocketTransport> transport = new AtomicReference<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        // Updated without locking, so concurrent samples may occasionally be lost
+        private volatile double latency;
+
+        private Endpoint(final HostAndPort address) {
+            this.address = address;
+        }
+
+        private boolean isHealthy() {
+            final SocketTransport current = transport.get();
+            return current != null && current.isOpen();
+        }
+
+        private Call newCall() throws IOException {
+            final SocketTransport current = transport.get();
+            if (current == null) {
+                throw new TransportException("Endpoint has been ejected: " + address);
+            }
+
+            return new Call(this, current);
+        }
+
+        private boolean connect() {
+            try {
+                final SocketTransport connected = new SocketTransport(address, maxFrameSize, Optional.empty(), 0,
+                        metrics, EventLoops.create(Optional.of(eventLoops.getGroup()), 0, false), Optional.empty(),
+                        SocketTransport.DEFAULT_MAX_MESSAGES_PER_FLUSH, connectTimeout);
+
+                // A lambda rather than a method reference, since javac 8 links a reference to a protected method
+                // inherited from another package with the inner class as caller, which fails with IllegalAccessError
+                connected.addListener((source, sink) -> putMessageInput(source, sink));
+
+                failures.set(0);
+                transport.set(connected);
+                LOGGER.info("Connected to endpoint: {}", address);
+                return true;
+            } catch (Exception e) {
+                LOGGER.debug("Unable to connect to endpoint: {}", address, e);
+                return false;
+            }
+        }
+
+        private void eject(final SocketTransport current, final String reason) {
+            if (!transport.compareAndSet(current, null)) {
+                return;
+            }
+
+            ejections.mark();
+            LOGGER.warn("Ejecting endpoint {}: {}", address, reason);
+
+            // Closing waits on the channel, which may not be done from its event loop
+            scheduler.execute(current::close);
+        }
+
+        private void onCallCompleted(final SocketTransport current, final long latencyNanos, final boolean success) {
+            inFlight.decrementAndGet();
+
+            // Ignore calls made over a connection which has since been replaced
+            if (transport.get() != current) {
+                return;
+            }
+
+            if (success) {
+                failures.set(0);
+                latency = latency == 0 ? latencyNanos : latency + EWMA_WEIGHT * (latencyNanos - latency);
+            } else if (failures.incrementAndGet() >= failuresBeforeEjection) {
+                eject(current, failures.get() + " consecutive failures");
+            }
+        }
+    }
+
+    /**
+     * The output for a single request, so its outcome is attributed to the connection it was sent over.
+     */
+    private static final class Call extends ByteSink implements Transport.CallListener, Transport.ForwardingOutput {
+        private final Endpoint endpoint;
+        private final SocketTransport transport;
+
+        private Call(final Endpoint endpoint, final SocketTransport transport) {
+            this.endpoint = endpoint;
+            this.transport = transport;
+        }
+
+        @Override
+        public OutputStream openStream() throws IOException {
+            return transport.getMessageOutput().openStream();
+        }
+
+        @Override
+        public ByteSink getUnderlyingOutput() {
+            return transport.getMessageOutput();
+        }
+
+        @Override
+        public void onCallStarted(final Transport.PendingCall call) {
+            endpoint.inFlight.incrementAndGet();
+            transport.getMessageOutput().onCallStarted(call);
+        }
+
+        @Override
+        public void onCallCompleted(final Transport.PendingCall call, final long latencyNanos, final boolean success) {
+            transport.getMessageOutput().onCallCompleted(call, latencyNanos, success);
+            endpoint.onCallCompleted(transport, latencyNanos, success);
+        }
+    }
+}
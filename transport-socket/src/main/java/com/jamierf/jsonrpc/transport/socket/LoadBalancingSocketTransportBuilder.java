@@ -0,0 +1,117 @@
+package com.jamierf.jsonrpc.transport.socket;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+
+import io.netty.channel.EventLoopGroup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HostAndPort;
+
+public class LoadBalancingSocketTransportBuilder {
+    private static final String DEFAULT_METRIC_REGISTRY_NAME = "jsonrpc";
+
+    private final Collection<HostAndPort> endpoints;
+
+    private int maxFrameSize = 1024 * 1024; // 1Mb
+    private LoadBalancingSocketTransport.Strategy strategy = LoadBalancingSocketTransport.Strategy.LEAST_IN_FLIGHT;
+    private int failuresBeforeEjection = 3;
+    private Duration probeInterval = Duration.ofSeconds(1);
+    private Duration connectTimeout = Duration.ofSeconds(1);
+    private Optional<MetricRegistry> metrics = Optional.empty();
+    private Optional<EventLoopGroup> eventLoopGroup = Optional.empty();
+    private int ioThreads = 0;
+    private boolean nativeTransport = false;
+
+    protected LoadBalancingSocketTransportBuilder(final Collection<HostAndPort> endpoints) {
+        checkArgument(!endpoints.isEmpty(), "At least one endpoint is required");
+        this.endpoints = ImmutableList.copyOf(endpoints);
+    }
+
+    public LoadBalancingSocketTransportBuilder maxFrameSize(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+        return this;
+    }
+
+    public LoadBalancingSocketTransportBuilder strategy(final LoadBalancingSocketTransport.Strategy strategy) {
+        this.strategy = checkNotNull(strategy);
+        return this;
+    }
+
+    /**
+     * Number of consecutive failed or timed out requests after which an endpoint is ejected.
+     */
+    public LoadBalancingSocketTransportBuilder failuresBeforeEjection(final int failuresBeforeEjection) {
+        checkArgument(failuresBeforeEjection > 0, "Number of failures must be positive");
+        this.failuresBeforeEjection = failuresBeforeEjection;
+        return this;
+    }
+
+    /**
+     * How often to check connections are still open, and try to reconnect to ejected endpoints.
+     */
+    public LoadBalancingSocketTransportBuilder probeInterval(final Duration probeInterval) {
+        checkArgument(!probeInterval.isNegative() && !probeInterval.isZero(), "Probe interval must be positive");
+        this.probeInterval = probeInterval;
+        return this;
+    }
+
+    /**
+     * Give up on connecting to an endpoint after this long. Endpoints are probed one after another, so an endpoint
+     * which doesn't respond delays probing the others by up to this long.
+     */
+    public LoadBalancingSocketTransportBuilder connectTimeout(final Duration connectTimeout) {
+        checkArgument(!connectTimeout.isNegative() && !connectTimeout.isZero(), "Connect timeout must be positive");
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    public LoadBalancingSocketTransportBuilder metrics(final MetricRegistry metrics) {
+        this.metrics = Optional.of(metrics);
+        return this;
+    }
+
+    /**
+     * Run I/O on the given event loop group, which is shared with other transports and left running on close.
+     */
+    public LoadBalancingSocketTransportBuilder eventLoopGroup(final EventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = Optional.of(eventLoopGroup);
+        return this;
+    }
+
+    /**
+     * Number of I/O threads in the event loop group owned by the transport, 0 uses Netty's default.
+     */
+    public LoadBalancingSocketTransportBuilder ioThreads(final int ioThreads) {
+        checkArgument(ioThreads >= 0, "Number of I/O threads must not be negative");
+        this.ioThreads = ioThreads;
+        return this;
+    }
+
+    /**
+     * Use the native epoll transport when it is available, falling back to NIO otherwise.
+     */
+    public LoadBalancingSocketTransportBuilder nativeTransport(final boolean nativeTransport) {
+        this.nativeTransport = nativeTransport;
+        return this;
+    }
+
+    public LoadBalancingSocketTransport build() {
+        return new LoadBalancingSocketTransport(
+                endpoints,
+                maxFrameSize,
+                strategy,
+                failuresBeforeEjection,
+                probeInterval,
+                connectTimeout,
+                metrics.orElseGet(() -> SharedMetricRegistries.getOrCreate(DEFAULT_METRIC_REGISTRY_NAME)),
+                EventLoops.create(eventLoopGroup, ioThreads, nativeTransport)
+        );
+    }
+}
@@ -0,0 +1,178 @@
+package com.jamierf.jsonrpc.transport.socket;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteSink;
+import com.google.common.net.HostAndPort;
+import com.jamierf.jsonrpc.transport.AbstractTransport;
+import com.jamierf.jsonrpc.transport.Transport;
+import com.jamierf.jsonrpc.util.Backoff;
+
+/**
+ * A client transport which keeps several connections open to the same address and spreads outgoing messages across
+ * them. Incoming messages from every connection are passed to the same listeners, so responses are matched to
+ * requests regardless of which connection they arrive on. Messages sent over different connections may arrive out
+ * of order.
+ */
+public class PooledSocketTransport extends AbstractTransport {
+
+    public enum Selection {
+        /**
+         * Use each connection in turn.
+         */
+        ROUND_ROBIN,
+        /**
+         * Use the connection with the fewest calls awaiting a response. Notifications, which are never answered, aren't
+         * counted.
+         */
+        LEAST_PENDING
+    }
+
+    private final Selection selection;
+    private final EventLoops eventLoops;
+    private final Optional<ExecutorService> decoderPool;
+    private final List<Connection> connections;
+    private final AtomicInteger next = new AtomicInteger();
+
+    protected PooledSocketTransport(final HostAndPort address, final int connections, final Selection selection,
+                                    final int maxFrameSize, final Optional<Executor> decodeExecutor,
+                                    final int decoderThreads, final MetricRegistry metrics, final EventLoops eventLoops,
+                                    final Optional<Backoff> reconnectBackoff, final int maxMessagesPerFlush,
+                                    final Duration connectTimeout) {
+        this.selection = selection;
+        this.eventLoops = eventLoops;
+
+        // Connections share the event loops and decoder threads rather than each owning their own
+        this.decoderPool = SocketTransport.createDecoderPool(decoderThreads);
+        final Optional<Executor> sharedExecutor = decoderPool.isPresent()
+                ? Optional.of(decoderPool.get())
+                : decodeExecutor;
+
+        final ImmutableList.Builder<Connection> builder = ImmutableList.builder();
+        try {
+            for (int i = 0; i < connections; i++) {
+                builder.add(new Connection(new SocketTransport(address, maxFrameSize, sharedExecutor, 0, metrics,
+                        EventLoops.create(Optional.of(eventLoops.getGroup()), 0, false), reconnectBackoff,
+                        maxMessagesPerFlush, connectTimeout)));
+            }
+        } catch (RuntimeException e) {
+            builder.build().forEach(c -> c.transport.close());
+            decoderPool.ifPresent(ExecutorService::shutdown);
+            eventLoops.close();
+            throw e;
+        }
+
+        this.connections = builder.build();
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * The transport of each pooled connection.
+     */
+    public List<SocketTransport> getConnections() {
+        return Lists.transform(connections, c -> c.transport);
+    }
+
+    /**
+     * The number of calls awaiting a response over all connections.
+     */
+    public int getPendingCallCount() {
+        return connections.stream().mapToInt(c -> c.pending.get()).sum();
+    }
+
+    @Override
+    public ByteSink getMessageOutput() {
+        return selection == Selection.LEAST_PENDING ? leastPending() : roundRobin();
+    }
+
+    /**
+     * Uses the next open connection in turn. Connections which are closed or reconnecting are skipped, unless none
+     * are open, in which case the next connection is used regardless and writing to it fails.
+     */
+    private Connection roundRobin() {
+        final int offset = next.getAndIncrement();
+
+        for (int i = 0; i < connections.size(); i++) {
+            final Connection connection = connections.get(Math.floorMod(offset + i, connections.size()));
+            if (connection.transport.isOpen()) {
+                return connection;
+            }
+        }
+
+        return connections.get(Math.floorMod(offset, connections.size()));
+    }
+
+    /**
+     * Uses the open connection with the fewest pending calls. A connection which dropped has no pending calls left,
+     * so it would otherwise take all new calls while it reconnects.
+     */
+    private Connection leastPending() {
+        // Start from a rotating offset so ties are spread across connections
+        final int offset = next.getAndIncrement();
+
+        Connection selected = null;
+        for (int i = 0; i < connections.size(); i++) {
+            final Connection connection = connections.get(Math.floorMod(offset + i, connections.size()));
+            if (connection.transport.isOpen()
+                    && (selected == null || connection.pending.get() < selected.pending.get())) {
+                selected = connection;
+            }
+        }
+
+        return selected != null ? selected : connections.get(Math.floorMod(offset, connections.size()));
+    }
+
+    @Override
+    public void close() {
+        connections.forEach(c -> c.transport.close());
+        decoderPool.ifPresent(ExecutorService::shutdown);
+        eventLoops.close();
+    }
+
+    private final class Connection extends ByteSink implements Transport.CallListener, Transport.ForwardingOutput {
+        private final SocketTransport transport;
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private Connection(final SocketTransport transport) {
+            this.transport = transport;
+
+            transport.addListener((source, target) -> putMessageInput(source, target));
+        }
+
+        @Override
+        public OutputStream openStream() throws IOException {
+            return transport.getMessageOutput().openStream();
+        }
+
+        @Override
+        public ByteSink getUnderlyingOutput() {
+            return transport.getMessageOutput();
+        }
+
+        // Only calls expecting a response are started, so notifications never count as pending
+        @Override
+        public void onCallStarted(final Transport.PendingCall call) {
+            pending.incrementAndGet();
+            transport.getMessageOutput().onCallStarted(call);
+        }
+
+        @Override
+        public void onCallCompleted(final Transport.PendingCall call, final long latencyNanos, final boolean success) {
+            pending.decrementAndGet();
+            transport.getMessageOutput().onCallCompleted(call, latencyNanos, success);
+        }
+    }
+}
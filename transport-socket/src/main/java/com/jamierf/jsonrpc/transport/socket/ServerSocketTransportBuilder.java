@@ -1,15 +1,32 @@
 package com.jamierf.jsonrpc.transport.socket;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import javax.net.ssl.SSLContext;
 
+import io.netty.channel.EventLoopGroup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
 public class ServerSocketTransportBuilder {
+    private static final String DEFAULT_METRIC_REGISTRY_NAME = "jsonrpc";
 
     private final int port;
 
     private int maxFrameSize = 1024 * 1024; // 1Mb
     private Optional<SSLContext> sslContext = Optional.empty();
+    private Optional<Executor> decodeExecutor = Optional.empty();
+    private int decoderThreads = 0;
+    private Optional<MetricRegistry> metrics = Optional.empty();
+    private Optional<EventLoopGroup> eventLoopGroup = Optional.empty();
+    private int ioThreads = 0;
+    private boolean nativeTransport = false;
+    private int acceptors = 1;
+    private int maxMessagesPerFlush = SocketTransport.DEFAULT_MAX_MESSAGES_PER_FLUSH;
 
     protected ServerSocketTransportBuilder(final int port) {
         this.port = port;
@@ -25,7 +42,88 @@ public class ServerSocketTransportBuilder {
         return this;
     }
 
+    /**
+     * Decode and dispatch incoming messages on the given executor, rather than on the I/O thread. Messages the
+     * executor rejects are decoded on the I/O thread, so a bounded executor pushes back on the sender once full.
+     */
+    public ServerSocketTransportBuilder decodeExecutor(final Executor executor) {
+        this.decodeExecutor = Optional.of(executor);
+        this.decoderThreads = 0;
+        return this;
+    }
+
+    /**
+     * Decode and dispatch incoming messages on a dedicated pool of threads owned by the transport, rather than on
+     * the I/O thread. The pool queues a bounded number of messages, beyond which they are decoded on the I/O thread.
+     */
+    public ServerSocketTransportBuilder decoderThreads(final int decoderThreads) {
+        checkArgument(decoderThreads > 0, "Number of decoder threads must be positive");
+        this.decoderThreads = decoderThreads;
+        this.decodeExecutor = Optional.empty();
+        return this;
+    }
+
+    public ServerSocketTransportBuilder metrics(final MetricRegistry metrics) {
+        this.metrics = Optional.of(metrics);
+        return this;
+    }
+
+    /**
+     * Run I/O on the given event loop group, which is shared with other transports and left running on close.
+     */
+    public ServerSocketTransportBuilder eventLoopGroup(final EventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = Optional.of(eventLoopGroup);
+        return this;
+    }
+
+    /**
+     * Number of I/O threads in the event loop group owned by the transport, 0 uses Netty's default.
+     */
+    public ServerSocketTransportBuilder ioThreads(final int ioThreads) {
+        checkArgument(ioThreads >= 0, "Number of I/O threads must not be negative");
+        this.ioThreads = ioThreads;
+        return this;
+    }
+
+    /**
+     * Use the native epoll transport when it is available, falling back to NIO otherwise.
+     */
+    public ServerSocketTransportBuilder nativeTransport(final boolean nativeTransport) {
+        this.nativeTransport = nativeTransport;
+        return this;
+    }
+
+    /**
+     * Number of sockets bound to the port, with incoming connections balanced between them by the kernel. Multiple
+     * acceptors rely on SO_REUSEPORT, so only a single acceptor is bound without the native transport.
+     */
+    public ServerSocketTransportBuilder acceptors(final int acceptors) {
+        checkArgument(acceptors > 0, "Number of acceptors must be positive");
+        this.acceptors = acceptors;
+        return this;
+    }
+
+    /**
+     * Flush after at most this many messages, rather than waiting for the event loop to get through its queued
+     * tasks. A value of 1 flushes after every message.
+     */
+    public ServerSocketTransportBuilder maxMessagesPerFlush(final int maxMessagesPerFlush) {
+        checkArgument(maxMessagesPerFlush > 0, "Max messages per flush must be positive");
+        this.maxMessagesPerFlush = maxMessagesPerFlush;
+        return this;
+    }
+
     public SocketTransport build() {
-        return new SocketTransport(port, maxFrameSize, sslContext);
+        return new SocketTransport(
+                port,
+                maxFrameSize,
+                sslContext,
+                decodeExecutor,
+                decoderThreads,
+                metrics.orElseGet(() -> SharedMetricRegistries.getOrCreate(DEFAULT_METRIC_REGISTRY_NAME)),
+                EventLoops.create(eventLoopGroup, ioThreads, nativeTransport),
+                acceptors,
+                maxMessagesPerFlush
+        );
     }
 }
@@ -1,23 +1,34 @@
 package com.jamierf.jsonrpc.transport.socket;
 
-import static com.google.common.base.Preconditions.checkState;
+import static com.codahale.metrics.MetricRegistry.name;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SSLContext;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -25,24 +36,34 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.util.AttributeKey;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
 import com.google.common.io.ByteSink;
 import com.google.common.io.ByteSource;
 import com.google.common.net.HostAndPort;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.jamierf.jsonrpc.transport.AbstractTransport;
-import com.jamierf.jsonrpc.util.ByteBufferBackedInputStream;
+import com.jamierf.jsonrpc.util.Backoff;
 import com.jamierf.jsonrpc.util.JsonObjectDecoder;
 
 public class SocketTransport extends AbstractTransport {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketTransport.class);
+    static final int DEFAULT_MAX_MESSAGES_PER_FLUSH = 64;
+    private static final int DECODER_QUEUE_SIZE_PER_THREAD = 256;
+
+    private static final AttributeKey<ChannelByteSink> OUTPUT = AttributeKey.valueOf(SocketTransport.class.getName() + ".output");
 
     public static ClientSocketTransportBuilder forClient(final String host, final int port) {
         return forClient(HostAndPort.fromParts(host, port));
@@ -52,50 +73,146 @@ public class SocketTransport extends AbstractTransport {
         return new ClientSocketTransportBuilder(address);
     }
 
+    public static LoadBalancingSocketTransportBuilder forEndpoints(final Collection<HostAndPort> endpoints) {
+        return new LoadBalancingSocketTransportBuilder(endpoints);
+    }
+
     public static ServerSocketTransportBuilder forServer(final int port) {
         return new ServerSocketTransportBuilder(port);
     }
 
+    /**
+     * Exposes a frame without copying it. The source is only valid until the frame is released.
+     */
     private static ByteSource asSource( final ByteBuf buffer ) {
+        // Heap buffers can be read straight from their backing array
+        if ( buffer.hasArray() ) {
+            return ByteSource.wrap( buffer.array() ).slice( buffer.arrayOffset() + buffer.readerIndex(), buffer.readableBytes() );
+        }
+
         return new ByteSource() {
             @Override
             public InputStream openStream() throws IOException {
-                return new ByteBufferBackedInputStream( buffer.nioBuffer() );
+                return new ByteBufInputStream( buffer.duplicate() );
+            }
+
+            @Override
+            public long size() {
+                return buffer.readableBytes();
             }
         };
     }
 
+    /**
+     * Creates a pool of decoder threads with a bounded queue. Once the queue is full frames are decoded on the I/O
+     * thread instead, which stops it reading from the connection until the pool catches up, so a fast sender can't
+     * queue frames without bound.
+     */
+    static Optional<ExecutorService> createDecoderPool(final int decoderThreads) {
+        if (decoderThreads <= 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new ThreadPoolExecutor(decoderThreads, decoderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(decoderThreads * DECODER_QUEUE_SIZE_PER_THREAD),
+                new ThreadFactoryBuilder().setNameFormat("jsonrpc-decoder-%d").setDaemon(true).build()));
+    }
+
     private final int maxFrameSize;
-    private final Channel channel;
+    private final int maxMessagesPerFlush;
+    private final MetricRegistry metrics;
+    private final Optional<ExecutorService> decoderPool;
+    private final Optional<? extends Executor> decodeExecutor;
+    private final Timer eventLoopTimer;
+    private final Histogram decoderQueueDepth;
+    private final Timer dispatchTimer;
+    private final EventLoops eventLoops;
+    private final List<Channel> channels;
 
-    protected SocketTransport(final int port, final int maxFrameSize, final Optional<SSLContext> sslContext) {
+    // Replaced when a client reconnects
+    private volatile Channel channel;
+    private volatile ChannelByteSink output;
+    private volatile boolean closed;
+
+    protected SocketTransport(final int port, final int maxFrameSize, final Optional<SSLContext> sslContext,
+                              final Optional<Executor> decodeExecutor, final int decoderThreads, final MetricRegistry metrics,
+                              final EventLoops eventLoops, final int acceptors, final int maxMessagesPerFlush) {
         this.maxFrameSize = maxFrameSize;
+        this.maxMessagesPerFlush = maxMessagesPerFlush;
+        this.metrics = metrics;
+        this.eventLoops = eventLoops;
+        this.decoderPool = createDecoderPool(decoderThreads);
+        this.decodeExecutor = decoderPool.isPresent() ? decoderPool : decodeExecutor;
+        this.eventLoopTimer = metrics.timer(name(SocketTransport.class, "event-loop"));
+        this.decoderQueueDepth = metrics.histogram(name(SocketTransport.class, "decoder-queue"));
+        this.dispatchTimer = metrics.timer(name(SocketTransport.class, "dispatch"));
 
-        channel = new ServerBootstrap()
-            .group(new NioEventLoopGroup())
-            .channel(NioServerSocketChannel.class)
+        final ServerBootstrap bootstrap = new ServerBootstrap()
+            .group(eventLoops.getGroup())
+            .channel(eventLoops.getServerSocketChannelType())
             .option(ChannelOption.SO_KEEPALIVE, true)
             .option(ChannelOption.TCP_NODELAY, true)
-            .childHandler(createChannelHandler(sslContext))
-            .bind(port)
-            .syncUninterruptibly()
-            .channel();
+            .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+            .childHandler(createChannelHandler(sslContext));
+
+        int bindings = acceptors;
+        if (acceptors > 1 && !eventLoops.isNative()) {
+            LOGGER.warn("Multiple acceptors require the native transport, binding a single acceptor");
+            bindings = 1;
+        }
+
+        if (bindings > 1) {
+            // Let the kernel balance incoming connections between several listening sockets
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+
+        channel = bootstrap.bind(port).syncUninterruptibly().channel();
+        channels = Lists.newArrayList(channel);
+
+        // Additional acceptors bind to the same port, which may have been chosen by the first bind
+        for (int i = 1; i < bindings; i++) {
+            channels.add(bootstrap.bind(getLocalAddress().getPort()).syncUninterruptibly().channel());
+        }
+
+        output = new ChannelByteSink(channel);
         LOGGER.info("Bound to: {}", getLocalAddress());
     }
 
-    protected SocketTransport(final HostAndPort address, final int maxFrameSize) {
+    protected SocketTransport(final HostAndPort address, final int maxFrameSize, final Optional<Executor> decodeExecutor,
+                              final int decoderThreads, final MetricRegistry metrics, final EventLoops eventLoops,
+                              final Optional<Backoff> reconnectBackoff, final int maxMessagesPerFlush,
+                              final Duration connectTimeout) {
         this.maxFrameSize = maxFrameSize;
+        this.maxMessagesPerFlush = maxMessagesPerFlush;
+        this.metrics = metrics;
+        this.eventLoops = eventLoops;
+        this.decoderPool = createDecoderPool(decoderThreads);
+        this.decodeExecutor = decoderPool.isPresent() ? decoderPool : decodeExecutor;
+        this.eventLoopTimer = metrics.timer(name(SocketTransport.class, "event-loop"));
+        this.decoderQueueDepth = metrics.histogram(name(SocketTransport.class, "decoder-queue"));
+        this.dispatchTimer = metrics.timer(name(SocketTransport.class, "dispatch"));
 
-        channel = new Bootstrap()
-                .group(new NioEventLoopGroup())
-                .channel(NioSocketChannel.class)
+        final Bootstrap bootstrap = new Bootstrap()
+                .group(eventLoops.getGroup())
+                .channel(eventLoops.getSocketChannelType())
                 .option(ChannelOption.SO_KEEPALIVE, true)
                 .option(ChannelOption.TCP_NODELAY, true)
-                .handler(createChannelHandler(Optional.empty()))
-                .connect(address.getHostText(), address.getPort())
-                .syncUninterruptibly()
-                .channel();
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Ints.saturatedCast(connectTimeout.toMillis()))
+                .handler(createChannelHandler(Optional.empty()));
+
+        channels = Collections.emptyList();
+        setChannel(bootstrap.connect(address.getHostText(), address.getPort()).syncUninterruptibly().channel());
         LOGGER.info("Connected to: {}", getRemoteAddress());
+
+        if (reconnectBackoff.isPresent()) {
+            channel.closeFuture().addListener(new Reconnector(bootstrap, address, reconnectBackoff.get()));
+        }
+    }
+
+    private void setChannel(final Channel channel) {
+        this.output = channel.attr(OUTPUT).get();
+        this.channel = channel;
     }
 
     public InetSocketAddress getLocalAddress() {
@@ -106,22 +223,56 @@ public class SocketTransport extends AbstractTransport {
         return (InetSocketAddress) channel.remoteAddress();
     }
 
+    public boolean isOpen() {
+        return channel.isActive();
+    }
+
     protected ChannelHandler createChannelHandler(final Optional<SSLContext> sslContext) {
         return new ChannelInitializer<Channel>() {
             @Override
             protected void initChannel(final Channel channel) {
+                // Each connection reports its own batching, registered while it's connected
+                final Histogram messagesPerFlush = new Histogram(new ExponentiallyDecayingReservoir());
+                final ChannelByteSink output = new ChannelByteSink(channel, maxMessagesPerFlush, Optional.of(messagesPerFlush));
+                channel.attr(OUTPUT).set(output);
+
                 channel.pipeline()
                         .addLast("decoder", new JsonObjectDecoder(maxFrameSize, false))
                         .addLast("inHandler", new ChannelInboundHandlerAdapter() {
+                            private String messagesPerFlushName;
+
                             @Override
-                            public void channelRead(final ChannelHandlerContext ctx, final Object msg)
-                                    throws IOException {
+                            public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+                                final Timer.Context timer = eventLoopTimer.time();
                                 final ByteBuf buffer = ((ByteBuf) msg);
-                                if (LOGGER.isTraceEnabled()) {
-                                    LOGGER.trace("<- {}", buffer.toString(StandardCharsets.UTF_8));
+                                try {
+                                    if (LOGGER.isTraceEnabled()) {
+                                        LOGGER.trace("<- {}", buffer.toString(StandardCharsets.UTF_8));
+                                    }
+
+                                    if (decodeExecutor.isPresent()) {
+                                        offload(ctx, buffer, output);
+                                    } else {
+                                        dispatch(ctx, buffer, output);
+                                    }
+                                } finally {
+                                    timer.stop();
                                 }
+                            }
+
+                            @Override
+                            public void channelActive(final ChannelHandlerContext ctx) {
+                                messagesPerFlushName = messagesPerFlushName(ctx.channel());
+                                metrics.register(messagesPerFlushName, messagesPerFlush);
+                                ctx.fireChannelActive();
+                            }
 
-                                putMessageInput( asSource( buffer ), asSink( ctx.channel() ) );
+                            @Override
+                            public void channelInactive(final ChannelHandlerContext ctx) {
+                                // Responses can no longer arrive, so don't leave requests waiting for a timeout
+                                output.failCalls();
+                                metrics.remove(messagesPerFlushName);
+                                ctx.fireChannelInactive();
                             }
 
                             @Override
@@ -148,30 +299,137 @@ public class SocketTransport extends AbstractTransport {
         };
     }
 
-    private ByteSink asSink( final Channel channel) {
-        return new ByteSink() {
-            @Override
-            public OutputStream openStream() throws IOException {
-                final AtomicBoolean closed = new AtomicBoolean(false);
-                return new ByteArrayOutputStream(maxFrameSize) {
-                    @Override
-                    public void close() throws IOException {
-                        checkState(closed.compareAndSet(false, true), "Stream already closed");
-                        channel.writeAndFlush( Unpooled.wrappedBuffer( buf, 0, count ) ).awaitUninterruptibly();
-                        super.close();
-                    }
-                };
-            }
-        };
+    /**
+     * Names the messages per flush histogram of a connection after both its ends, as several connections may share
+     * a remote address.
+     */
+    private static String messagesPerFlushName(final Channel channel) {
+        return name(SocketTransport.class, "messages-per-flush",
+                format((InetSocketAddress) channel.localAddress()) + "->" + format((InetSocketAddress) channel.remoteAddress()));
+    }
+
+    private static String format(final InetSocketAddress address) {
+        return HostAndPort.fromParts(address.getHostString(), address.getPort()).toString();
+    }
+
+    /**
+     * Hands a frame to the decode stage, which takes over responsibility for releasing it, or decodes it here if the
+     * decode stage is full.
+     */
+    private void offload(final ChannelHandlerContext ctx, final ByteBuf buffer, final ByteSink output) {
+        final Executor executor = decodeExecutor.get();
+        if (executor instanceof ThreadPoolExecutor) {
+            decoderQueueDepth.update(((ThreadPoolExecutor) executor).getQueue().size());
+        }
+
+        try {
+            executor.execute(() -> dispatch(ctx, buffer, output));
+        } catch (RejectedExecutionException e) {
+            // Holds up the I/O thread, so nothing more is read from the connection until this frame is handled
+            dispatch(ctx, buffer, output);
+        }
+    }
+
+    private void dispatch(final ChannelHandlerContext ctx, final ByteBuf buffer, final ByteSink output) {
+        final Timer.Context timer = dispatchTimer.time();
+        try {
+            putMessageInput( asSource( buffer ), output );
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Exception from channel: {}", ctx.channel(), e);
+        } finally {
+            // Listeners must have finished reading the frame by the time they return
+            buffer.release();
+            timer.stop();
+        }
     }
 
     @Override
-    public ByteSink getMessageOutput() {
-        return asSink( channel );
+    public ChannelByteSink getMessageOutput() {
+        return output;
     }
 
     @Override
     public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        for (final Channel channel : channels) {
+            channel.close().syncUninterruptibly();
+        }
+
         channel.close().syncUninterruptibly();
+
+        decoderPool.ifPresent(ExecutorService::shutdown);
+        eventLoops.close();
+    }
+
+    /**
+     * Reconnects a client whenever its channel closes, waiting for a jittered backoff between attempts.
+     */
+    private final class Reconnector implements ChannelFutureListener {
+        private final Bootstrap bootstrap;
+        private final HostAndPort address;
+        private final Backoff backoff;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private Reconnector(final Bootstrap bootstrap, final HostAndPort address, final Backoff backoff) {
+            this.bootstrap = bootstrap;
+            this.address = address;
+            this.backoff = backoff;
+        }
+
+        @Override
+        public void operationComplete(final ChannelFuture future) {
+            if (!closed) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            // A shared group may be shut down by its owner before this transport is closed, and reconnecting would
+            // keep it busy through its quiet period
+            if (eventLoops.getGroup().isShuttingDown()) {
+                LOGGER.warn("Not reconnecting to {}, event loop is shutting down", address);
+                return;
+            }
+
+            final Duration delay = backoff.delay(attempts.getAndIncrement());
+            LOGGER.info("Reconnecting to {} in {}", address, delay);
+
+            try {
+                eventLoops.getGroup().schedule(this::connect, delay.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                LOGGER.warn("Unable to reconnect to {}, event loop has shut down", address);
+            }
+        }
+
+        private void connect() {
+            if (closed) {
+                return;
+            }
+
+            bootstrap.connect(address.getHostText(), address.getPort()).addListener((ChannelFuture future) -> {
+                if (!future.isSuccess()) {
+                    LOGGER.debug("Failed to reconnect to {}", address, future.cause());
+                    schedule();
+                    return;
+                }
+
+                // The transport may have been closed while we were connecting
+                if (closed) {
+                    future.channel().close();
+                    return;
+                }
+
+                attempts.set(0);
+                setChannel(future.channel());
+                LOGGER.info("Reconnected to: {}", getRemoteAddress());
+
+                future.channel().closeFuture().addListener(this);
+            });
+        }
     }
 }
@@ -44,6 +44,7 @@ public class JsonObjectDecoder extends ByteToMessageDecoder {
 
     private int openBraces;
     private int idx;
+    private int lastReaderIndex;
 
     private int state;
     private boolean insideString;
@@ -88,6 +89,11 @@ public class JsonObjectDecoder extends ByteToMessageDecoder {
             return;
         }
 
+        // The cumulation buffer may have been compacted since the last call, shift our saved index to match
+        if (this.idx > in.readerIndex() && lastReaderIndex != in.readerIndex()) {
+            this.idx = in.readerIndex() + (this.idx - lastReaderIndex);
+        }
+
         // index of next byte to process.
         int idx = this.idx;
         int wrtIdx = in.writerIndex();
@@ -170,6 +176,7 @@ public class JsonObjectDecoder extends ByteToMessageDecoder {
         } else {
             this.idx = idx;
         }
+        this.lastReaderIndex = in.readerIndex();
     }
 
     /**
@@ -0,0 +1,26 @@
+package com.jamierf.jsonrpc;
+
+import com.jamierf.jsonrpc.codec.jackson.JacksonCodecFactory;
+import com.jamierf.jsonrpc.transport.socket.SocketTransport;
+
+public class BackpressureSocketJsonRpcTest extends JsonRpcTest<SocketTransport> {
+	public BackpressureSocketJsonRpcTest() {
+		super( new JacksonCodecFactory() );
+	}
+
+	@Override
+	protected SocketTransport createServer() {
+		return SocketTransport.forServer( 0 ).build();
+	}
+
+	@Override
+	protected SocketTransport createClient( final SocketTransport server ) {
+		return SocketTransport.forClient( "localhost", server.getLocalAddress().getPort() ).build();
+	}
+
+	@Override
+	protected JsonRpcServerBuilder configureServer( final JsonRpcServerBuilder builder ) {
+		// Reading is paused at the limit, so concurrent calls queue up rather than being rejected
+		return builder.maxInFlightRequestsPerConnection( 1 );
+	}
+}
@@ -0,0 +1,27 @@
+package com.jamierf.jsonrpc;
+
+import java.time.Duration;
+
+import com.jamierf.jsonrpc.codec.jackson.JacksonCodecFactory;
+import com.jamierf.jsonrpc.transport.socket.SocketTransport;
+
+public class BatchingSocketJsonRpcTest extends JsonRpcTest<SocketTransport> {
+	public BatchingSocketJsonRpcTest() {
+		super( new JacksonCodecFactory() );
+	}
+
+	@Override
+	protected SocketTransport createServer() {
+		return SocketTransport.forServer( 0 ).build();
+	}
+
+	@Override
+	protected SocketTransport createClient( final SocketTransport server ) {
+		return SocketTransport.forClient( "localhost", server.getLocalAddress().getPort() ).build();
+	}
+
+	@Override
+	protected JsonRpcClientBuilder configureClient( final JsonRpcClientBuilder builder ) {
+		return builder.batching( Duration.ofMillis( 1 ), 8 );
+	}
+}
@@ -0,0 +1,165 @@
+package com.jamierf.jsonrpc;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Every.everyItem;
+import static org.hamcrest.core.Is.is;
+
+import static com.jamierf.jsonrpc.util.TypeReference.reference;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.jamierf.jsonrpc.api.Parameters;
+import com.jamierf.jsonrpc.codec.jackson.JacksonCodecFactory;
+import com.jamierf.jsonrpc.transport.socket.LoadBalancingSocketTransport;
+import com.jamierf.jsonrpc.transport.socket.SocketTransport;
+import com.jamierf.jsonrpc.util.SimpleLoggingRule;
+
+public class LoadBalancingSocketTransportTest {
+
+	@ClassRule
+	public static SimpleLoggingRule logging = new SimpleLoggingRule().trace( "com.jamierf" );
+
+	private static final long TIMEOUT = Duration.ofSeconds( 5 ).toMillis();
+
+	public interface PingApi {
+		String ping();
+	}
+
+	private static class Replica implements PingApi {
+		private final AtomicInteger calls = new AtomicInteger();
+		private final JsonRpcServer server;
+		private final int port;
+
+		private Replica( final int port ) {
+			final SocketTransport transport = SocketTransport.forServer( port ).build();
+			this.server = JsonRpc.server( transport, new JacksonCodecFactory() )
+					.executor( MoreExecutors.newDirectExecutorService() )
+					.build();
+			this.port = transport.getLocalAddress().getPort();
+
+			server.register( this, PingApi.class );
+		}
+
+		@Override
+		public String ping() {
+			calls.incrementAndGet();
+			return "pong";
+		}
+
+		private HostAndPort getAddress() {
+			return HostAndPort.fromParts( "localhost", port );
+		}
+	}
+
+	private final List<Replica> replicas = Lists.newArrayList();
+	private LoadBalancingSocketTransport transport;
+	private JsonRpcClient client;
+	private PingApi api;
+
+	@Before
+	public void setUp() {
+		replicas.add( new Replica( 0 ) );
+		replicas.add( new Replica( 0 ) );
+
+		transport = SocketTransport.forEndpoints( ImmutableList.of( replicas.get( 0 ).getAddress(), replicas.get( 1 ).getAddress() ) )
+				.strategy( LoadBalancingSocketTransport.Strategy.EWMA_LATENCY )
+				.probeInterval( Duration.ofMillis( 50 ) )
+				.build();
+		client = JsonRpc.client( transport, new JacksonCodecFactory() )
+				.requestTimeout( Duration.ofSeconds( 30 ) )
+				.executor( MoreExecutors.newDirectExecutorService() )
+				.build();
+		api = client.proxy( PingApi.class );
+	}
+
+	@Test
+	public void testSpreadsCallsAcrossEndpoints() {
+		for ( int i = 0; i < 100; i++ ) {
+			assertThat( api.ping(), is( "pong" ) );
+		}
+
+		assertThat( replicas.get( 0 ).calls.get(), greaterThan( 0 ) );
+		assertThat( replicas.get( 1 ).calls.get(), greaterThan( 0 ) );
+	}
+
+	@Test
+	public void testEjectsAndReadmitsEndpoint() throws InterruptedException {
+		final Replica replica = replicas.get( 0 );
+		replica.server.close();
+		awaitHealthyEndpoints( 1 );
+
+		// Every call goes to the remaining endpoint
+		for ( int i = 0; i < 10; i++ ) {
+			assertThat( api.ping(), is( "pong" ) );
+		}
+
+		assertThat( replicas.get( 1 ).calls.get(), is( 10 ) );
+
+		// Once the endpoint comes back it's probed and used again
+		replicas.set( 0, new Replica( replica.port ) );
+		awaitHealthyEndpoints( 2 );
+
+		for ( int i = 0; i < 100; i++ ) {
+			assertThat( api.ping(), is( "pong" ) );
+		}
+
+		assertThat( replicas.get( 0 ).calls.get(), greaterThan( 0 ) );
+	}
+
+	@Test
+	public void testBatchesCallsOverTheSameEndpoint() throws Exception {
+		final MetricRegistry metrics = new MetricRegistry();
+		final JsonRpcClient batchingClient = JsonRpc.client( SocketTransport.forEndpoints( ImmutableList.of( replicas.get( 0 ).getAddress(), replicas.get( 1 ).getAddress() ) ).build(), new JacksonCodecFactory() )
+				.requestTimeout( Duration.ofSeconds( 30 ) )
+				.executor( MoreExecutors.newDirectExecutorService() )
+				.metrics( metrics )
+				.batching( Duration.ofMillis( 200 ), 8 )
+				.build();
+
+		try {
+			final List<ListenableFuture<String>> results = Lists.newArrayList();
+			for ( int i = 0; i < 8; i++ ) {
+				results.add( batchingClient.callAsync( "ping", Parameters.none(), reference( String.class ) ) );
+			}
+
+			assertThat( Futures.allAsList( results ).get( 30, TimeUnit.SECONDS ), everyItem( is( "pong" ) ) );
+
+			// Every call has its own output, but eight calls over two endpoints put at least two in one batch
+			assertThat( metrics.histogram( name( JsonRpcClient.class, "batch-size" ) ).getSnapshot().getMax(), greaterThan( 1L ) );
+		} finally {
+			batchingClient.close();
+		}
+	}
+
+	private void awaitHealthyEndpoints( final int expected ) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while ( transport.getHealthyEndpointCount() != expected && System.currentTimeMillis() < deadline ) {
+			Thread.sleep( 10 );
+		}
+
+		assertThat( transport.getHealthyEndpointCount(), is( expected ) );
+	}
+
+	@After
+	public void tearDown() {
+		client.close();
+		replicas.forEach( r -> r.server.close() );
+	}
+}
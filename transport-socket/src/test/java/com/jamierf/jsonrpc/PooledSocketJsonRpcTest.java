@@ -0,0 +1,23 @@
+package com.jamierf.jsonrpc;
+
+import com.jamierf.jsonrpc.codec.jackson.JacksonCodecFactory;
+import com.jamierf.jsonrpc.transport.Transport;
+import com.jamierf.jsonrpc.transport.socket.PooledSocketTransport;
+import com.jamierf.jsonrpc.transport.socket.SocketTransport;
+
+public class PooledSocketJsonRpcTest extends JsonRpcTest<Transport> {
+	public PooledSocketJsonRpcTest() {
+		super( new JacksonCodecFactory() );
+	}
+
+	@Override
+	protected Transport createServer() {
+		return SocketTransport.forServer( 0 ).build();
+	}
+
+	@Override
+	protected Transport createClient( final Transport server ) {
+		return SocketTransport.forClient( "localhost", ( (SocketTransport) server ).getLocalAddress().getPort() )
+				.buildPool( 4, PooledSocketTransport.Selection.LEAST_PENDING );
+	}
+}
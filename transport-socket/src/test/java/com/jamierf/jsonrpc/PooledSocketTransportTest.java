@@ -0,0 +1,133 @@
+package com.jamierf.jsonrpc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.jamierf.jsonrpc.codec.jackson.JacksonCodecFactory;
+import com.jamierf.jsonrpc.transport.socket.PooledSocketTransport;
+import com.jamierf.jsonrpc.transport.socket.SocketTransport;
+import com.jamierf.jsonrpc.util.SimpleLoggingRule;
+
+public class PooledSocketTransportTest {
+
+	@ClassRule
+	public static SimpleLoggingRule logging = new SimpleLoggingRule().trace( "com.jamierf" );
+
+	private static final long TIMEOUT = Duration.ofSeconds( 5 ).toMillis();
+
+	public interface PingApi {
+		String ping();
+
+		void notifyPing();
+
+		CompletableFuture<String> neverPing();
+	}
+
+	private final AtomicInteger notifications = new AtomicInteger();
+	private JsonRpcServer server;
+	private PooledSocketTransport transport;
+	private JsonRpcClient client;
+	private PingApi api;
+
+	@Before
+	public void setUp() {
+		final SocketTransport serverTransport = SocketTransport.forServer( 0 ).build();
+		server = JsonRpc.server( serverTransport, new JacksonCodecFactory() )
+				.executor( MoreExecutors.newDirectExecutorService() )
+				.build();
+		server.register( new PingApi() {
+			@Override
+			public String ping() {
+				return "pong";
+			}
+
+			@Override
+			public void notifyPing() {
+				notifications.incrementAndGet();
+			}
+
+			@Override
+			public CompletableFuture<String> neverPing() {
+				return new CompletableFuture<>();
+			}
+		}, PingApi.class );
+
+		transport = SocketTransport.forClient( "localhost", serverTransport.getLocalAddress().getPort() )
+				.buildPool( 2, PooledSocketTransport.Selection.LEAST_PENDING );
+		client = JsonRpc.client( transport, new JacksonCodecFactory() )
+				.requestTimeout( Duration.ofSeconds( 30 ) )
+				.executor( MoreExecutors.newDirectExecutorService() )
+				.build();
+		api = client.proxy( PingApi.class );
+	}
+
+	@Test
+	public void testOnlyCallsAwaitingResponsesArePending() throws InterruptedException {
+		for ( int i = 0; i < 50; i++ ) {
+			api.notifyPing();
+			assertThat( api.ping(), is( "pong" ) );
+		}
+
+		awaitNotifications( 50 );
+		awaitPendingCalls( 0 );
+
+		final CompletableFuture<String> never = api.neverPing();
+		awaitPendingCalls( 1 );
+
+		// Notifications and answered calls don't shift the count either way
+		for ( int i = 0; i < 10; i++ ) {
+			api.notifyPing();
+			assertThat( api.ping(), is( "pong" ) );
+		}
+
+		awaitNotifications( 60 );
+		awaitPendingCalls( 1 );
+		assertThat( never.isDone(), is( false ) );
+	}
+
+	@Test
+	public void testClosedConnectionsAreSkipped() {
+		final SocketTransport closed = transport.getConnections().get( 0 );
+		closed.close();
+		assertThat( closed.isOpen(), is( false ) );
+
+		// Connections are otherwise picked in turn or on a tie, so half of these would be written to the closed one
+		for ( int i = 0; i < 10; i++ ) {
+			assertThat( api.ping(), is( "pong" ) );
+		}
+	}
+
+	private void awaitNotifications( final int expected ) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while ( notifications.get() != expected && System.currentTimeMillis() < deadline ) {
+			Thread.sleep( 10 );
+		}
+
+		assertThat( notifications.get(), is( expected ) );
+	}
+
+	private void awaitPendingCalls( final int expected ) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while ( transport.getPendingCallCount() != expected && System.currentTimeMillis() < deadline ) {
+			Thread.sleep( 10 );
+		}
+
+		assertThat( transport.getPendingCallCount(), is( expected ) );
+	}
+
+	@After
+	public void tearDown() {
+		client.close();
+		server.close();
+	}
+}
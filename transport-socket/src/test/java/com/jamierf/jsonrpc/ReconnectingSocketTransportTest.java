@@ -0,0 +1,142 @@
+package com.jamierf.jsonrpc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.jamierf.jsonrpc.api.Idempotent;
+import com.jamierf.jsonrpc.codec.jackson.JacksonCodecFactory;
+import com.jamierf.jsonrpc.transport.TransportException;
+import com.jamierf.jsonrpc.transport.socket.SocketTransport;
+import com.jamierf.jsonrpc.util.SimpleLoggingRule;
+
+public class ReconnectingSocketTransportTest {
+
+	@ClassRule
+	public static SimpleLoggingRule logging = new SimpleLoggingRule().trace( "com.jamierf" );
+
+	private static final long TIMEOUT = Duration.ofSeconds( 5 ).toMillis();
+
+	public interface PingApi {
+		String ping();
+
+		@Idempotent
+		CompletableFuture<String> idempotentPing();
+
+		CompletableFuture<String> neverPing();
+	}
+
+	private static class PingServer implements PingApi {
+		@Override
+		public String ping() {
+			return "pong";
+		}
+
+		@Override
+		public CompletableFuture<String> idempotentPing() {
+			return CompletableFuture.completedFuture( "pong" );
+		}
+
+		@Override
+		public CompletableFuture<String> neverPing() {
+			return new CompletableFuture<>();
+		}
+	}
+
+	private int port;
+	private JsonRpcServer server;
+	private SocketTransport transport;
+	private JsonRpcClient client;
+	private PingApi api;
+
+	@Before
+	public void setUp() {
+		startServer( 0 );
+
+		transport = SocketTransport.forClient( "localhost", port )
+				.reconnectBackoff( Duration.ofMillis( 10 ), Duration.ofMillis( 100 ) )
+				.build();
+		client = JsonRpc.client( transport, new JacksonCodecFactory() )
+				.requestTimeout( Duration.ofSeconds( 30 ) )
+				.retries( 10, Duration.ofMillis( 50 ) )
+				.executor( MoreExecutors.newDirectExecutorService() )
+				.build();
+		api = client.proxy( PingApi.class );
+	}
+
+	private void startServer( final int port ) {
+		final SocketTransport transport = SocketTransport.forServer( port ).build();
+		server = JsonRpc.server( transport, new JacksonCodecFactory() )
+				.executor( MoreExecutors.newDirectExecutorService() )
+				.build();
+		server.register( new PingServer(), PingApi.class );
+
+		this.port = transport.getLocalAddress().getPort();
+	}
+
+	@Test
+	public void testPendingCallsFailWhenConnectionCloses() throws Exception {
+		final CompletableFuture<String> result = api.neverPing();
+
+		server.close();
+
+		try {
+			result.get( TIMEOUT, TimeUnit.MILLISECONDS );
+			fail( "Expected call to fail" );
+		} catch ( ExecutionException e ) {
+			assertThat( e.getCause(), instanceOf( TransportException.class ) );
+		}
+	}
+
+	@Test
+	public void testReconnectsAfterServerRestart() throws Exception {
+		assertThat( api.ping(), is( "pong" ) );
+
+		server.close();
+		awaitConnected( false );
+
+		startServer( port );
+		awaitConnected( true );
+
+		assertThat( api.ping(), is( "pong" ) );
+	}
+
+	@Test
+	public void testRetriesIdempotentCalls() throws Exception {
+		server.close();
+		awaitConnected( false );
+
+		// Fails to send while disconnected, then is retried once we've reconnected
+		final CompletableFuture<String> result = api.idempotentPing();
+		startServer( port );
+
+		assertThat( result.get( TIMEOUT, TimeUnit.MILLISECONDS ), is( "pong" ) );
+	}
+
+	private void awaitConnected( final boolean expected ) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while ( transport.isOpen() != expected && System.currentTimeMillis() < deadline ) {
+			Thread.sleep( 10 );
+		}
+
+		assertThat( transport.isOpen(), is( expected ) );
+	}
+
+	@After
+	public void tearDown() {
+		client.close();
+		server.close();
+	}
+}
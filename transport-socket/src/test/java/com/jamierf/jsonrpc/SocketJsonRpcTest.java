@@ -0,0 +1,20 @@
+package com.jamierf.jsonrpc;
+
+import com.jamierf.jsonrpc.codec.jackson.JacksonCodecFactory;
+import com.jamierf.jsonrpc.transport.socket.SocketTransport;
+
+public class SocketJsonRpcTest extends JsonRpcTest<SocketTransport> {
+	public SocketJsonRpcTest() {
+		super( new JacksonCodecFactory() );
+	}
+
+	@Override
+	protected SocketTransport createServer() {
+		return SocketTransport.forServer( 0 ).build();
+	}
+
+	@Override
+	protected SocketTransport createClient( final SocketTransport server ) {
+		return SocketTransport.forClient( "localhost", server.getLocalAddress().getPort() ).build();
+	}
+}
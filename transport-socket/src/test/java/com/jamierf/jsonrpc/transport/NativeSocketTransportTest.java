@@ -0,0 +1,18 @@
+package com.jamierf.jsonrpc.transport;
+
+import com.jamierf.jsonrpc.transport.socket.SocketTransport;
+
+/**
+ * Uses the native transport where available, falling back to NIO elsewhere.
+ */
+public class NativeSocketTransportTest extends TransportTest<SocketTransport> {
+	@Override
+	protected SocketTransport createServer() {
+		return SocketTransport.forServer( 0 ).nativeTransport( true ).acceptors( 2 ).build();
+	}
+
+	@Override
+	protected SocketTransport createClient( final SocketTransport server ) {
+		return SocketTransport.forClient( "localhost", server.getLocalAddress().getPort() ).nativeTransport( true ).build();
+	}
+}
@@ -0,0 +1,76 @@
+package com.jamierf.jsonrpc.transport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.jamierf.jsonrpc.transport.socket.SocketTransport;
+
+public class OffloadedSocketTransportTest extends TransportTest<SocketTransport> {
+	@Override
+	protected SocketTransport createServer() {
+		return SocketTransport.forServer( 0 ).decoderThreads( 1 ).build();
+	}
+
+	@Override
+	protected SocketTransport createClient( final SocketTransport server ) {
+		return SocketTransport.forClient( "localhost", server.getLocalAddress().getPort() ).decoderThreads( 1 ).build();
+	}
+
+	@Test
+	public void testMessagesAreDecodedInlineWhenTheDecodeStageIsFull() throws IOException, InterruptedException {
+		final int numMessages = 20;
+		final CountDownLatch blocked = new CountDownLatch( 1 );
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor( 1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>( 1 ) );
+		executor.execute( () -> {
+			try {
+				blocked.await();
+			} catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+		} );
+
+		final MetricRegistry metrics = new MetricRegistry();
+		final SocketTransport server = SocketTransport.forServer( 0 ).decodeExecutor( executor ).metrics( metrics ).build();
+		final SocketTransport client = SocketTransport.forClient( "localhost", server.getLocalAddress().getPort() ).build();
+
+		final AtomicInteger received = new AtomicInteger();
+		server.addListener( ( source, output ) -> received.incrementAndGet() );
+
+		try {
+			for ( int i = 0; i < numMessages; i++ ) {
+				client.getMessageOutput().write( String.format( "{'text':'hello world %d'}", i ).getBytes() );
+			}
+
+			// One message waits in the queue, the rest are decoded on the I/O thread rather than dropped
+			awaitReceived( received, numMessages - 1 );
+			assertThat( metrics.getHistograms().get( "com.jamierf.jsonrpc.transport.socket.SocketTransport.decoder-queue" ).getSnapshot().getMax(), is( 1L ) );
+
+			blocked.countDown();
+			awaitReceived( received, numMessages );
+		} finally {
+			blocked.countDown();
+			client.close();
+			server.close();
+			executor.shutdown();
+		}
+	}
+
+	private static void awaitReceived( final AtomicInteger received, final int expected ) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 5 );
+		while ( received.get() != expected && System.currentTimeMillis() < deadline ) {
+			Thread.sleep( 10 );
+		}
+
+		assertThat( received.get(), is( expected ) );
+	}
+}
@@ -0,0 +1,33 @@
+package com.jamierf.jsonrpc.transport;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+import com.jamierf.jsonrpc.transport.socket.SocketTransport;
+
+public class SharedEventLoopSocketTransportTest extends TransportTest<SocketTransport> {
+	private static EventLoopGroup eventLoopGroup;
+
+	@BeforeClass
+	public static void setUpEventLoopGroup() {
+		eventLoopGroup = new NioEventLoopGroup( 2 );
+	}
+
+	@AfterClass
+	public static void tearDownEventLoopGroup() {
+		eventLoopGroup.shutdownGracefully().syncUninterruptibly();
+	}
+
+	@Override
+	protected SocketTransport createServer() {
+		return SocketTransport.forServer( 0 ).eventLoopGroup( eventLoopGroup ).build();
+	}
+
+	@Override
+	protected SocketTransport createClient( final SocketTransport server ) {
+		return SocketTransport.forClient( "localhost", server.getLocalAddress().getPort() ).eventLoopGroup( eventLoopGroup ).build();
+	}
+}
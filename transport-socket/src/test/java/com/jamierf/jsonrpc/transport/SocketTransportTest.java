@@ -1,8 +1,21 @@
 package com.jamierf.jsonrpc.transport;
 
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
 import com.jamierf.jsonrpc.transport.socket.SocketTransport;
 
 public class SocketTransportTest extends TransportTest<SocketTransport> {
+	private static final String MESSAGES_PER_FLUSH = name( SocketTransport.class, "messages-per-flush" );
+
 	@Override
 	protected SocketTransport createServer() {
 		return SocketTransport.forServer( 0 ).build();
@@ -12,4 +25,39 @@ public class SocketTransportTest extends TransportTest<SocketTransport> {
 	protected SocketTransport createClient( final SocketTransport server ) {
 		return SocketTransport.forClient( "localhost", server.getLocalAddress().getPort() ).build();
 	}
+
+	@Test
+	public void testMessagesPerFlushAreRecordedPerConnection() throws InterruptedException {
+		final MetricRegistry serverMetrics = new MetricRegistry();
+		final MetricRegistry clientMetrics = new MetricRegistry();
+		final SocketTransport server = SocketTransport.forServer( 0 ).metrics( serverMetrics ).build();
+		final SocketTransport first = SocketTransport.forClient( "localhost", server.getLocalAddress().getPort() ).metrics( clientMetrics ).build();
+		final SocketTransport second = SocketTransport.forClient( "localhost", server.getLocalAddress().getPort() ).metrics( clientMetrics ).build();
+
+		// Both clients connect to the same address, and are told apart by their local address
+		awaitHistograms( clientMetrics, 2 );
+		awaitHistograms( serverMetrics, 2 );
+
+		first.close();
+		awaitHistograms( clientMetrics, 1 );
+		awaitHistograms( serverMetrics, 1 );
+
+		second.close();
+		server.close();
+		awaitHistograms( clientMetrics, 0 );
+		awaitHistograms( serverMetrics, 0 );
+	}
+
+	private static void awaitHistograms( final MetricRegistry metrics, final int expected ) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 5 );
+		while ( messagesPerFlush( metrics ).size() != expected && System.currentTimeMillis() < deadline ) {
+			Thread.sleep( 10 );
+		}
+
+		assertThat( messagesPerFlush( metrics ).toString(), messagesPerFlush( metrics ).size(), is( expected ) );
+	}
+
+	private static SortedMap<String, Histogram> messagesPerFlush( final MetricRegistry metrics ) {
+		return metrics.getHistograms( ( name, metric ) -> name.startsWith( MESSAGES_PER_FLUSH ) );
+	}
 }
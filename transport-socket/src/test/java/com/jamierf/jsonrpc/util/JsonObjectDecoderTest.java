@@ -0,0 +1,55 @@
+package com.jamierf.jsonrpc.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+public class JsonObjectDecoderTest {
+
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setUp() {
+        channel = new EmbeddedChannel(new JsonObjectDecoder());
+    }
+
+    @After
+    public void tearDown() {
+        channel.finish();
+    }
+
+    @Test
+    public void testObjectSplitAcrossReadsWhileFrameIsHeld() {
+        // A complete object followed by the start of the next one
+        write("{\"id\":\"1\"}\n{\"id\":");
+        final ByteBuf first = (ByteBuf) channel.readInbound();
+
+        // Holding the first frame forces the decoder to copy its cumulation buffer on the next read
+        write("\"2\"}");
+        assertThat(read(first), is("{\"id\":\"1\"}"));
+        assertThat(read((ByteBuf) channel.readInbound()), is("{\"id\":\"2\"}"));
+        assertThat(channel.readInbound(), nullValue());
+    }
+
+    private void write(final String text) {
+        channel.writeInbound(Unpooled.copiedBuffer(text, StandardCharsets.UTF_8));
+    }
+
+    private static String read(final ByteBuf buffer) {
+        try {
+            return buffer.toString(StandardCharsets.UTF_8);
+        } finally {
+            buffer.release();
+        }
+    }
+}
@@ -7,9 +7,51 @@ import java.io.IOException;
 
 public interface Transport {
     interface MessageListener {
+        /**
+         * Called for each incoming message. The source may be backed by transport buffers which are released once
+         * this returns, so it must be fully read before returning.
+         */
         void onMessageInput(final ByteSource source, final ByteSink target) throws IOException;
     }
 
+    /**
+     * A request awaiting its response, which the transport may fail early if the response can no longer arrive.
+     */
+    interface PendingCall {
+        void fail(final Throwable cause);
+    }
+
+    /**
+     * May be implemented by a message output to be told the outcome of each request written to it.
+     */
+    interface CallListener {
+        void onCallStarted(final PendingCall call);
+
+        /**
+         * Called once the response to a request is received, or the request fails or times out. Error responses
+         * from the remote side still count as successful calls.
+         */
+        void onCallCompleted(final PendingCall call, final long latencyNanos, final boolean success);
+    }
+
+    /**
+     * May be implemented by a message output to let the receiver stop the transport reading further messages from
+     * it, until it has caught up.
+     */
+    interface FlowControl {
+        void pauseReading();
+
+        void resumeReading();
+    }
+
+    /**
+     * May be implemented by a message output which only forwards to another, such as a separate output per request
+     * over a shared connection, so messages can be grouped by where they are actually written.
+     */
+    interface ForwardingOutput {
+        ByteSink getUnderlyingOutput() throws IOException;
+    }
+
     void addListener(final MessageListener listener);
 
     ByteSink getMessageOutput() throws IOException;
@@ -0,0 +1,14 @@
+package com.jamierf.jsonrpc.transport;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a message can't be delivered, or a response can't be received, because of a problem with the
+ * underlying connection rather than the remote side.
+ */
+public class TransportException extends IOException {
+
+    public TransportException(final String message) {
+        super (message);
+    }
+}
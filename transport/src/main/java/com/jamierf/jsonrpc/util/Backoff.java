@@ -0,0 +1,39 @@
+package com.jamierf.jsonrpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter, so that clients which failed at the same time don't all retry at the same time.
+ */
+public class Backoff {
+
+    private final long initialDelay;
+    private final long maxDelay;
+
+    public Backoff(final Duration initialDelay, final Duration maxDelay) {
+        checkArgument(!initialDelay.isNegative() && !initialDelay.isZero(), "Initial delay must be positive");
+        checkArgument(maxDelay.compareTo(initialDelay) >= 0, "Max delay must not be less than the initial delay");
+
+        this.initialDelay = initialDelay.toNanos();
+        this.maxDelay = maxDelay.toNanos();
+    }
+
+    /**
+     * Returns the delay before the given attempt, counting from 0. The delay doubles with each attempt up to the
+     * max delay, and a random amount of up to half of it is taken off.
+     */
+    public Duration delay(final int attempt) {
+        checkArgument(attempt >= 0, "Attempt must not be negative");
+
+        // Shifting past the max delay would overflow, so cap it first
+        final long ceiling = attempt < Long.numberOfLeadingZeros(initialDelay) && (initialDelay << attempt) < maxDelay
+                ? initialDelay << attempt
+                : maxDelay;
+
+        final long half = ceiling / 2;
+        return Duration.ofNanos(ceiling - half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+}